@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.benchmarks;
+
+import io.github.cowwoc.pouch.core.ChildScopes;
+import io.github.cowwoc.pouch.core.ConcurrentChildScopes;
+import io.github.cowwoc.pouch.core.StripedChildScopes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of registering and unregistering child scopes with a shared parent.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChildScopesBenchmark
+{
+	/**
+	 * The {@code ChildScopes} implementation to measure.
+	 */
+	@Param({"concurrent", "striped"})
+	public String implementation;
+	private ChildScopes children;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public ChildScopesBenchmark()
+	{
+	}
+
+	/**
+	 * Creates the child registry.
+	 */
+	@Setup
+	public void setUp()
+	{
+		switch (implementation)
+		{
+			case "concurrent":
+			{
+				children = new ConcurrentChildScopes();
+				break;
+			}
+			case "striped":
+			{
+				children = new StripedChildScopes();
+				break;
+			}
+			default:
+				throw new AssertionError(implementation);
+		}
+	}
+
+	/**
+	 * Shuts down the child registry.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		children.shutdown(Duration.ZERO);
+	}
+
+	/**
+	 * Measures {@code add()} followed by {@code remove()}.
+	 *
+	 * @param child the child scope
+	 * @return {@code true} if the child was removed
+	 */
+	@Benchmark
+	@Threads(1)
+	public boolean addRemove(ChildScope child)
+	{
+		children.add(child);
+		return children.remove(child);
+	}
+
+	/**
+	 * Measures {@code add()} followed by {@code remove()} on all cores.
+	 *
+	 * @param child the child scope
+	 * @return {@code true} if the child was removed
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean addRemoveContended(ChildScope child)
+	{
+		children.add(child);
+		return children.remove(child);
+	}
+
+	/**
+	 * A child scope that does nothing.
+	 */
+	@State(Scope.Thread)
+	public static class ChildScope implements io.github.cowwoc.pouch.core.Scope
+	{
+		/**
+		 * Creates a new instance.
+		 */
+		public ChildScope()
+		{
+		}
+
+		@Override
+		public void addChild(io.github.cowwoc.pouch.core.Scope child)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void removeChild(io.github.cowwoc.pouch.core.Scope child)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isClosed()
+		{
+			return false;
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.benchmarks;
+
+import io.github.cowwoc.pouch.core.ConcurrentLazyFactory;
+import io.github.cowwoc.pouch.core.ConcurrentLazyReference;
+import io.github.cowwoc.pouch.core.ConstantReference;
+import io.github.cowwoc.pouch.core.LazyFactory;
+import io.github.cowwoc.pouch.core.LazyReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating a reference and invoking {@code getValue()} for the first time ("cold").
+ * Factories are also closed, so their benchmarks cover the full lifecycle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColdReferenceBenchmark
+{
+	private final Object value = new Object();
+
+	/**
+	 * Creates a new instance.
+	 */
+	public ColdReferenceBenchmark()
+	{
+	}
+
+	/**
+	 * Measures the first invocation of {@code LazyReference.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object lazyReference()
+	{
+		return LazyReference.create(() -> value).getValue();
+	}
+
+	/**
+	 * Measures the first invocation of {@code ConcurrentLazyReference.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object concurrentLazyReference()
+	{
+		return ConcurrentLazyReference.create(() -> value).getValue();
+	}
+
+	/**
+	 * Measures the first invocation of {@code ConstantReference.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object constantReference()
+	{
+		return new ConstantReference<>(value).getValue();
+	}
+
+	/**
+	 * Measures the first invocation of {@code LazyFactory.getValue()}, followed by {@code close()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object lazyFactory()
+	{
+		LazyFactory<Object> factory = LazyFactory.create(() -> value, unused ->
+		{
+		});
+		Object result = factory.getValue();
+		factory.close();
+		return result;
+	}
+
+	/**
+	 * Measures the first invocation of {@code ConcurrentLazyFactory.getValue()}, followed by {@code close()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object concurrentLazyFactory()
+	{
+		ConcurrentLazyFactory<Object> factory = ConcurrentLazyFactory.create(() -> value, unused ->
+		{
+		});
+		Object result = factory.getValue();
+		factory.close();
+		return result;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.benchmarks;
+
+import io.github.cowwoc.pouch.core.AbstractScope;
+import io.github.cowwoc.pouch.core.ChildScopes;
+import io.github.cowwoc.pouch.core.ConcurrentChildScopes;
+import io.github.cowwoc.pouch.core.LazyChildScopes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of opening and closing a scope that never has any children, such as a transaction or
+ * request scope. Run with {@code -prof gc} to compare the number of bytes that are allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeafScopeBenchmark
+{
+	/**
+	 * The {@code ChildScopes} implementation to measure.
+	 */
+	@Param({"concurrent", "lazy"})
+	public String implementation;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public LeafScopeBenchmark()
+	{
+	}
+
+	/**
+	 * Measures opening and closing a scope without children.
+	 *
+	 * @return the scope
+	 */
+	@Benchmark
+	@Threads(1)
+	public LeafScope openAndClose()
+	{
+		ChildScopes children = switch (implementation)
+		{
+			case "concurrent" -> new ConcurrentChildScopes();
+			case "lazy" -> new LazyChildScopes();
+			default -> throw new AssertionError(implementation);
+		};
+		LeafScope scope = new LeafScope(children);
+		scope.close();
+		return scope;
+	}
+
+	/**
+	 * A scope that never has any children.
+	 */
+	public static final class LeafScope extends AbstractScope
+	{
+		private boolean closed;
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param children the child scopes
+		 */
+		private LeafScope(ChildScopes children)
+		{
+			super(children);
+		}
+
+		@Override
+		public boolean isClosed()
+		{
+			return closed;
+		}
+
+		@Override
+		public void close()
+		{
+			if (closed)
+				return;
+			closed = true;
+			children.shutdown(Duration.ZERO);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.benchmarks;
+
+import io.github.cowwoc.pouch.core.ConcurrentLazyFactory;
+import io.github.cowwoc.pouch.core.ConcurrentLazyReference;
+import io.github.cowwoc.pouch.core.ConstantReference;
+import io.github.cowwoc.pouch.core.LazyFactory;
+import io.github.cowwoc.pouch.core.LazyReference;
+import io.github.cowwoc.pouch.core.Reference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@code getValue()} once the value has been initialized ("warm").
+ * <p>
+ * Each benchmark runs on a single thread, and again on one thread per CPU core ({@code *Contended}) to
+ * expose contention on shared state. Use {@code -t} to measure other thread counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReferenceBenchmark
+{
+	private final Object value = new Object();
+	private Reference<Object> lazyReference;
+	private Reference<Object> concurrentLazyReference;
+	private Reference<Object> constantReference;
+	private LazyFactory<Object> lazyFactory;
+	private ConcurrentLazyFactory<Object> concurrentLazyFactory;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public ReferenceBenchmark()
+	{
+	}
+
+	/**
+	 * Creates and initializes the references.
+	 */
+	@Setup
+	public void setUp()
+	{
+		lazyReference = LazyReference.create(() -> value);
+		concurrentLazyReference = ConcurrentLazyReference.create(() -> value);
+		constantReference = new ConstantReference<>(value);
+		lazyFactory = LazyFactory.create(() -> value, unused ->
+		{
+		});
+		concurrentLazyFactory = ConcurrentLazyFactory.create(() -> value, unused ->
+		{
+		});
+
+		lazyReference.getValue();
+		concurrentLazyReference.getValue();
+		lazyFactory.getValue();
+		concurrentLazyFactory.getValue();
+	}
+
+	/**
+	 * Releases the factories.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		lazyFactory.close();
+		concurrentLazyFactory.close();
+	}
+
+	/**
+	 * Measures {@code LazyReference.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(1)
+	public Object lazyReference()
+	{
+		return lazyReference.getValue();
+	}
+
+	/**
+	 * Measures {@code ConcurrentLazyReference.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(1)
+	public Object concurrentLazyReference()
+	{
+		return concurrentLazyReference.getValue();
+	}
+
+	/**
+	 * Measures {@code ConstantReference.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(1)
+	public Object constantReference()
+	{
+		return constantReference.getValue();
+	}
+
+	/**
+	 * Measures {@code LazyFactory.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(1)
+	public Object lazyFactory()
+	{
+		return lazyFactory.getValue();
+	}
+
+	/**
+	 * Measures {@code ConcurrentLazyFactory.getValue()}.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(1)
+	public Object concurrentLazyFactory()
+	{
+		return concurrentLazyFactory.getValue();
+	}
+
+	/**
+	 * Measures {@code LazyReference.getValue()} on all cores.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object lazyReferenceContended()
+	{
+		return lazyReference.getValue();
+	}
+
+	/**
+	 * Measures {@code ConcurrentLazyReference.getValue()} on all cores.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object concurrentLazyReferenceContended()
+	{
+		return concurrentLazyReference.getValue();
+	}
+
+	/**
+	 * Measures {@code ConstantReference.getValue()} on all cores.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object constantReferenceContended()
+	{
+		return constantReference.getValue();
+	}
+
+	/**
+	 * Measures {@code LazyFactory.getValue()} on all cores.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object lazyFactoryContended()
+	{
+		return lazyFactory.getValue();
+	}
+
+	/**
+	 * Measures {@code ConcurrentLazyFactory.getValue()} on all cores.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object concurrentLazyFactoryContended()
+	{
+		return concurrentLazyFactory.getValue();
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.benchmarks;
+
+import io.github.cowwoc.pouch.jersey.scope.DatabaseScope;
+import io.github.cowwoc.pouch.jersey.scope.DefaultJvmScope;
+import io.github.cowwoc.pouch.jersey.scope.JvmScope;
+import io.github.cowwoc.pouch.jersey.scope.MainDatabaseScope;
+import io.github.cowwoc.pouch.jersey.scope.MainServerScope;
+import io.github.cowwoc.pouch.jersey.scope.RequestScope;
+import io.github.cowwoc.pouch.jersey.scope.RunMode;
+import io.github.cowwoc.pouch.jersey.scope.ServerScope;
+import jakarta.ws.rs.core.UriInfo;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.hk2.api.ServiceLocatorFactory;
+import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares looking up {@code UriInfo} from the {@code ServiceLocator} on every access against the memoized
+ * {@code RequestScope.getRequestedUri()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestScopeBenchmark
+{
+	private static final URI REQUEST_URI = URI.create("http://localhost:8080/helloworld");
+	/**
+	 * The number of times that the requested URI is accessed per request.
+	 */
+	@Param({"1", "10"})
+	public int accesses;
+	private JvmScope jvmScope;
+	private DatabaseScope databaseScope;
+	private ServerScope serverScope;
+	private ServiceLocator serviceLocator;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public RequestScopeBenchmark()
+	{
+	}
+
+	/**
+	 * Creates the parent scopes and binds {@code UriInfo}.
+	 */
+	@Setup
+	public void setUp()
+	{
+		jvmScope = new DefaultJvmScope(RunMode.RELEASE);
+		databaseScope = new MainDatabaseScope(jvmScope);
+		serverScope = new MainServerScope(databaseScope);
+		serviceLocator = ServiceLocatorFactory.getInstance().create(null);
+		UriInfo uriInfo = (UriInfo) Proxy.newProxyInstance(UriInfo.class.getClassLoader(),
+			new Class<?>[]{UriInfo.class}, (proxy, method, args) ->
+			{
+				if (method.getName().equals("getRequestUri"))
+					return REQUEST_URI;
+				throw new UnsupportedOperationException(method.getName());
+			});
+		ServiceLocatorUtilities.bind(serviceLocator, new AbstractBinder()
+		{
+			@Override
+			protected void configure()
+			{
+				bind(uriInfo).to(UriInfo.class);
+			}
+		});
+	}
+
+	/**
+	 * Closes the parent scopes.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		serviceLocator.shutdown();
+		serverScope.close();
+		databaseScope.close();
+		jvmScope.close();
+	}
+
+	/**
+	 * Looks up {@code UriInfo} on every access, as {@code getRequestedUri()} used to.
+	 *
+	 * @param blackhole consumes the URIs
+	 */
+	@Benchmark
+	public void locatorLookup(Blackhole blackhole)
+	{
+		try (RequestScope scope = serverScope.createRequest(serviceLocator))
+		{
+			blackhole.consume(scope);
+			for (int i = 0; i < accesses; ++i)
+				blackhole.consume(serviceLocator.getService(UriInfo.class).getRequestUri());
+		}
+	}
+
+	/**
+	 * Reads the memoized URI on every access.
+	 *
+	 * @param blackhole consumes the URIs
+	 */
+	@Benchmark
+	public void memoized(Blackhole blackhole)
+	{
+		try (RequestScope scope = serverScope.createRequest(serviceLocator))
+		{
+			for (int i = 0; i < accesses; ++i)
+				blackhole.consume(scope.getRequestedUri());
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.benchmarks;
+
+import io.github.cowwoc.pouch.jersey.scope.MainPouchBinder;
+import io.github.cowwoc.pouch.jersey.scope.RequestScope;
+import io.github.cowwoc.pouch.jersey.scope.RequestScopeFeature;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of obtaining a {@code RequestScope} through HK2's request-scoped factory
+ * against {@code RequestScopeFeature}. Requests are dispatched to an in-memory {@code ApplicationHandler},
+ * without any networking.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestScopeIntegrationBenchmark
+{
+	private static final URI BASE_URI = URI.create("http://localhost/");
+	private static final URI FACTORY_URI = BASE_URI.resolve("factory");
+	private static final URI FEATURE_URI = BASE_URI.resolve("feature");
+	private ApplicationHandler factoryHandler;
+	private ApplicationHandler featureHandler;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public RequestScopeIntegrationBenchmark()
+	{
+	}
+
+	/**
+	 * Creates one Jersey application per integration, so that each request only pays for one of them.
+	 */
+	@Setup
+	public void setUp()
+	{
+		ResourceConfig factoryConfig = new ResourceConfig();
+		factoryConfig.register(MainPouchBinder.class);
+		factoryConfig.register(FactoryResource.class);
+		factoryHandler = new ApplicationHandler(factoryConfig);
+		factoryHandler.onStartup(null);
+
+		ResourceConfig featureConfig = new ResourceConfig();
+		featureConfig.register(MainPouchBinder.class);
+		featureConfig.register(RequestScopeFeature.class);
+		featureConfig.register(FeatureResource.class);
+		featureHandler = new ApplicationHandler(featureConfig);
+		featureHandler.onStartup(null);
+	}
+
+	/**
+	 * Shuts down the Jersey applications.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		factoryHandler.onShutdown(null);
+		featureHandler.onShutdown(null);
+	}
+
+	/**
+	 * Injects the request scope through HK2's request-scoped factory.
+	 *
+	 * @return the response
+	 * @throws ExecutionException   if the request fails
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	@Benchmark
+	public ContainerResponse hk2Factory() throws ExecutionException, InterruptedException
+	{
+		return factoryHandler.apply(newRequest(FACTORY_URI)).get();
+	}
+
+	/**
+	 * Passes the request scope created by {@code RequestScopeFeature} as a resource method parameter.
+	 *
+	 * @return the response
+	 * @throws ExecutionException   if the request fails
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	@Benchmark
+	public ContainerResponse feature() throws ExecutionException, InterruptedException
+	{
+		return featureHandler.apply(newRequest(FEATURE_URI)).get();
+	}
+
+	/**
+	 * Returns a new GET request.
+	 *
+	 * @param uri the requested URI
+	 * @return the request
+	 */
+	private static ContainerRequest newRequest(URI uri)
+	{
+		return new ContainerRequest(BASE_URI, uri, "GET", null, new MapPropertiesDelegate(), null);
+	}
+
+	/**
+	 * A resource that injects the request scope using HK2.
+	 */
+	@Path("factory")
+	public static final class FactoryResource
+	{
+		private final RequestScope scope;
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param scope the request scope
+		 */
+		@Inject
+		public FactoryResource(RequestScope scope)
+		{
+			this.scope = scope;
+		}
+
+		/**
+		 * Returns the run mode.
+		 *
+		 * @return the run mode
+		 */
+		@GET
+		@Produces("text/plain")
+		public String get()
+		{
+			return scope.getMode().name();
+		}
+	}
+
+	/**
+	 * A resource that receives the request scope from {@code RequestScopeFeature}.
+	 */
+	@Path("feature")
+	public static final class FeatureResource
+	{
+		/**
+		 * Creates a new instance.
+		 */
+		public FeatureResource()
+		{
+		}
+
+		/**
+		 * Returns the run mode.
+		 *
+		 * @param scope the request scope
+		 * @return the run mode
+		 */
+		@GET
+		@Produces("text/plain")
+		public String get(@Context RequestScope scope)
+		{
+			return scope.getMode().name();
+		}
+	}
+}
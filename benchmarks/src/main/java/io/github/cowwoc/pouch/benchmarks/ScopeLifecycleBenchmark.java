@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.benchmarks;
+
+import io.github.cowwoc.pouch.jersey.scope.DatabaseScope;
+import io.github.cowwoc.pouch.jersey.scope.DefaultJvmScope;
+import io.github.cowwoc.pouch.jersey.scope.DefaultTransactionScope;
+import io.github.cowwoc.pouch.jersey.scope.JvmScope;
+import io.github.cowwoc.pouch.jersey.scope.MainDatabaseScope;
+import io.github.cowwoc.pouch.jersey.scope.MainServerScope;
+import io.github.cowwoc.pouch.jersey.scope.RequestScope;
+import io.github.cowwoc.pouch.jersey.scope.RunMode;
+import io.github.cowwoc.pouch.jersey.scope.ServerScope;
+import io.github.cowwoc.pouch.jersey.scope.TransactionScope;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.hk2.api.ServiceLocatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of opening and closing the scopes that are created for every transaction and HTTP
+ * request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScopeLifecycleBenchmark
+{
+	private JvmScope jvmScope;
+	private DatabaseScope databaseScope;
+	private ServerScope serverScope;
+	private ServiceLocator serviceLocator;
+
+	/**
+	 * Creates a new instance.
+	 */
+	public ScopeLifecycleBenchmark()
+	{
+	}
+
+	/**
+	 * Creates the parent scopes.
+	 */
+	@Setup
+	public void setUp()
+	{
+		jvmScope = new DefaultJvmScope(RunMode.RELEASE);
+		databaseScope = new MainDatabaseScope(jvmScope);
+		serverScope = new MainServerScope(databaseScope);
+		serviceLocator = ServiceLocatorFactory.getInstance().create(null);
+	}
+
+	/**
+	 * Closes the parent scopes.
+	 */
+	@TearDown
+	public void tearDown()
+	{
+		serviceLocator.shutdown();
+		serverScope.close();
+		databaseScope.close();
+		jvmScope.close();
+	}
+
+	/**
+	 * Measures opening and closing a {@code DefaultTransactionScope}.
+	 *
+	 * @return the scope
+	 */
+	@Benchmark
+	@Threads(1)
+	public TransactionScope transactionScope()
+	{
+		TransactionScope scope = new DefaultTransactionScope(databaseScope);
+		scope.close();
+		return scope;
+	}
+
+	/**
+	 * Measures opening and closing a {@code MainRequestScope}.
+	 *
+	 * @return the scope
+	 */
+	@Benchmark
+	@Threads(1)
+	public RequestScope requestScope()
+	{
+		RequestScope scope = serverScope.createRequest(serviceLocator);
+		scope.close();
+		return scope;
+	}
+
+	/**
+	 * Measures opening and closing a {@code DefaultTransactionScope} on all cores.
+	 *
+	 * @return the scope
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public TransactionScope transactionScopeContended()
+	{
+		TransactionScope scope = new DefaultTransactionScope(databaseScope);
+		scope.close();
+		return scope;
+	}
+
+	/**
+	 * Measures opening and closing a {@code MainRequestScope} on all cores.
+	 *
+	 * @return the scope
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public RequestScope requestScopeContended()
+	{
+		RequestScope scope = serverScope.createRequest(serviceLocator);
+		scope.close();
+		return scope;
+	}
+}
@@ -38,7 +38,18 @@ abstract class AbstractLazyReference<T> implements Reference<T>
 	{
 		if (!initialized)
 		{
-			this.value = createValue();
+			MetricsCollector metrics = Metrics.getCollector();
+			long start = System.nanoTime();
+			try
+			{
+				this.value = createValue();
+			}
+			catch (Throwable t)
+			{
+				metrics.valueCreationFailed(this, System.nanoTime() - start);
+				throw t;
+			}
+			metrics.valueCreated(this, System.nanoTime() - start);
 			initialized = true;
 		}
 		return this.value;
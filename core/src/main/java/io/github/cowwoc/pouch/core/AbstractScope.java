@@ -1,20 +1,64 @@
 package io.github.cowwoc.pouch.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * The default implementation of {@link Scope}.
  */
 public abstract class AbstractScope implements Scope
 {
+	private static final Reference<?>[] NO_REFERENCES = new Reference<?>[0];
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractScope, Reference[]> WARM_UP_REFERENCES =
+		AtomicReferenceFieldUpdater.newUpdater(AbstractScope.class, Reference[].class, "warmUpReferences");
 	/**
 	 * The child scopes.
 	 */
-	protected final ConcurrentChildScopes children = new ConcurrentChildScopes();
+	protected final ChildScopes children;
+	/**
+	 * The references that {@link #warmUp(Executor)} initializes.
+	 */
+	private volatile Reference<?>[] warmUpReferences = NO_REFERENCES;
 
 	/**
-	 * Creates new scope.
+	 * Creates new scope that uses {@link LeakTracking#getDefault() the default leak tracking}.
 	 */
 	protected AbstractScope()
 	{
+		this(LeakTracking.getDefault());
+	}
+
+	/**
+	 * Creates new scope. The child registry is allocated the first time that a child is added.
+	 *
+	 * @param leakTracking determines the information that is recorded about child scopes, in order to report
+	 *                     leaks
+	 * @throws NullPointerException if {@code leakTracking} is null
+	 */
+	protected AbstractScope(LeakTracking leakTracking)
+	{
+		this(new LazyChildScopes(leakTracking));
+	}
+
+	/**
+	 * Creates new scope.
+	 * <p>
+	 * Scopes that create and close many children concurrently should use {@link StripedChildScopes}.
+	 *
+	 * @param children the child scopes
+	 * @throws NullPointerException if {@code children} is null
+	 */
+	protected AbstractScope(ChildScopes children)
+	{
+		if (children == null)
+			throw new NullPointerException("children may not be null");
+		this.children = children;
 	}
 
 	@Override
@@ -22,6 +66,7 @@ public abstract class AbstractScope implements Scope
 	{
 		ensureOpen();
 		children.add(child);
+		Metrics.getCollector().childAdded(this, child);
 	}
 
 	@Override
@@ -31,7 +76,90 @@ public abstract class AbstractScope implements Scope
 		// child scopes. When a parent scope is closed with some child scopes still open, closing the child
 		// scopes will call parent.removeChild(this). In such cases, even though the parent scope is closed, the
 		// child scopes must still be able to remove themselves.
-		children.remove(child);
+		// Only the first removal is reported, so that removing a child twice does not skew the metrics
+		if (children.remove(child))
+			Metrics.getCollector().childRemoved(this, child);
+	}
+
+	/**
+	 * Registers a reference that {@link #warmUp(Executor)} initializes. The reference must be thread-safe.
+	 *
+	 * @param <R>       the type of the reference
+	 * @param reference the reference
+	 * @return {@code reference}
+	 * @throws NullPointerException if {@code reference} is null
+	 */
+	protected final <R extends Reference<?>> R registerForWarmUp(R reference)
+	{
+		if (reference == null)
+			throw new NullPointerException("reference may not be null");
+		while (true)
+		{
+			Reference<?>[] oldReferences = warmUpReferences;
+			Reference<?>[] newReferences = Arrays.copyOf(oldReferences, oldReferences.length + 1);
+			newReferences[oldReferences.length] = reference;
+			if (WARM_UP_REFERENCES.compareAndSet(this, oldReferences, newReferences))
+				return reference;
+		}
+	}
+
+	/**
+	 * Initializes the references that were passed to {@link #registerForWarmUp(Reference)} concurrently.
+	 * References that depend on each other wait for their dependencies to get initialized.
+	 *
+	 * @param executor the executor that initializes the values
+	 * @return a future that completes when all the values are initialized. If any of the references fail to
+	 * 	initialize, the future completes exceptionally with the first failure and the remaining failures are
+	 * 	added as suppressed exceptions.
+	 * @throws NullPointerException  if {@code executor} is null
+	 * @throws IllegalStateException if the scope is closed
+	 */
+	@Override
+	public CompletableFuture<Void> warmUp(Executor executor)
+	{
+		if (executor == null)
+			throw new NullPointerException("executor may not be null");
+		ensureOpen();
+		Reference<?>[] references = warmUpReferences;
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[references.length];
+		for (int i = 0; i < references.length; ++i)
+		{
+			Reference<?> reference = references[i];
+			// Asynchronous references do not need to block one of the executor's threads
+			if (reference instanceof AsyncLazyReference)
+				futures[i] = ((AsyncLazyReference<?>) reference).getValueAsync();
+			else if (reference instanceof AsyncLazyFactory)
+				futures[i] = ((AsyncLazyFactory<?>) reference).getValueAsync();
+			else
+				futures[i] = CompletableFuture.runAsync(reference::getValue, executor);
+		}
+		return CompletableFuture.allOf(futures).handle((value, throwable) ->
+		{
+			if (throwable == null)
+				return null;
+			List<Throwable> exceptions = new ArrayList<>();
+			for (CompletableFuture<?> future : futures)
+			{
+				if (!future.isCompletedExceptionally())
+					continue;
+				try
+				{
+					future.join();
+				}
+				catch (CompletionException e)
+				{
+					exceptions.add(e.getCause());
+				}
+				catch (RuntimeException e)
+				{
+					exceptions.add(e);
+				}
+			}
+			Throwable mainException = exceptions.get(0);
+			for (int i = 1, size = exceptions.size(); i < size; ++i)
+				mainException.addSuppressed(exceptions.get(i));
+			throw new CompletionException(mainException);
+		});
 	}
 
 	/**
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe factory that creates a value on an {@code Executor}.
+ * <p>
+ * Creation begins when {@link #start()}, {@link #getValueAsync()} or {@link #getValue()} is first invoked.
+ * Invoke {@code start()} ahead of time to prevent the first caller from blocking. If the value cannot be
+ * created, the next request retries.
+ * <p>
+ * {@link #close()} cancels creation if it is in progress. If the value is created after the factory is
+ * closed, it is disposed immediately.
+ * <p>
+ * The implementation is thread-safe.
+ *
+ * @param <T> the type of the value
+ */
+public abstract class AsyncLazyFactory<T> implements Factory<T>
+{
+	/**
+	 * Creates a new {@code AsyncLazyFactory}.
+	 *
+	 * @param <T>      the type of value returned by the factory
+	 * @param supplier supplies the factory value
+	 * @param disposer implements {@link #disposeValue(java.lang.Object) disposeValue(T)}
+	 * @param executor the executor that creates the value
+	 * @return a new {@code AsyncLazyFactory}
+	 * @throws NullPointerException if {@code executor} is null
+	 */
+	public static <T> AsyncLazyFactory<T> create(Supplier<T> supplier, Consumer<T> disposer,
+		Executor executor)
+	{
+		return new AsyncLazyFactory<T>(executor)
+		{
+			@Override
+			protected T createValue()
+			{
+				return supplier.get();
+			}
+
+			@Override
+			protected void disposeValue(T value)
+			{
+				disposer.accept(value);
+			}
+		};
+	}
+
+	/**
+	 * Creates a new {@code AsyncLazyFactory} that disposes its value by invoking {@code close()}. If
+	 * {@code close()} throws a checked exception, it is wrapped in a {@code RuntimeException} or an
+	 * exception that extends it.
+	 *
+	 * @param <T>      the type of value returned by the factory
+	 * @param supplier supplies the factory value
+	 * @param executor the executor that creates the value
+	 * @return a new {@code AsyncLazyFactory}
+	 * @throws NullPointerException if {@code executor} is null
+	 */
+	public static <T extends AutoCloseable> AsyncLazyFactory<T> create(Supplier<T> supplier,
+		Executor executor)
+	{
+		return create(supplier, value ->
+		{
+			try
+			{
+				value.close();
+			}
+			catch (Exception e)
+			{
+				throw WrappedCheckedException.wrap(e);
+			}
+		}, executor);
+	}
+
+	private final Executor executor;
+	/**
+	 * The result of the latest attempt to create the value, or {@code null} if no attempt was made. Updates
+	 * are guarded by {@code this}.
+	 */
+	private volatile CompletableFuture<T> creation;
+	/**
+	 * {@code true} if the factory was closed. Updates are guarded by {@code this}.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param executor the executor that creates the value
+	 * @throws NullPointerException if {@code executor} is null
+	 */
+	protected AsyncLazyFactory(Executor executor)
+	{
+		if (executor == null)
+			throw new NullPointerException("executor may not be null");
+		this.executor = executor;
+	}
+
+	/**
+	 * Creates the value. This method is invoked on the executor.
+	 *
+	 * @return the value
+	 */
+	protected abstract T createValue();
+
+	/**
+	 * Disposes the value.
+	 * <p>
+	 * This method is invoked at most once. It is invoked by {@link #close()} if the value was already
+	 * created, or by the executor if the value is created after the factory is closed.
+	 *
+	 * @param value the value to dispose
+	 */
+	protected abstract void disposeValue(T value);
+
+	/**
+	 * Starts creating the value, unless it is already being created.
+	 *
+	 * @throws IllegalStateException if the factory is closed
+	 */
+	public final void start()
+	{
+		getCreation();
+	}
+
+	/**
+	 * Returns the value without blocking. Cancelling the returned future does not cancel the creation of the
+	 * value.
+	 *
+	 * @return a future that completes with the value, or completes exceptionally if the value could not be
+	 * 	created or the factory is closed first
+	 * @throws IllegalStateException if the factory is closed
+	 */
+	public final CompletableFuture<T> getValueAsync()
+	{
+		// Prevent callers from completing or cancelling the future that is shared by all callers
+		return getCreation().thenApply(value -> value);
+	}
+
+	/**
+	 * Returns the value, blocking until it is created.
+	 *
+	 * @return an object of type {@code <T>}
+	 * @throws IllegalStateException if the factory is closed
+	 */
+	@Override
+	public final T getValue()
+	{
+		try
+		{
+			return getCreation().join();
+		}
+		catch (CancellationException e)
+		{
+			throw new IllegalStateException("Factory is closed", e);
+		}
+		catch (CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw WrappedCheckedException.wrap(cause);
+		}
+	}
+
+	/**
+	 * Returns the latest attempt to create the value, starting a new attempt if necessary.
+	 *
+	 * @return the future result of the attempt
+	 * @throws IllegalStateException if the factory is closed
+	 */
+	private CompletableFuture<T> getCreation()
+	{
+		CompletableFuture<T> result = creation;
+		if (result != null && !result.isCompletedExceptionally() && !closed)
+			return result;
+		synchronized (this)
+		{
+			if (closed)
+				throw new IllegalStateException("Factory is closed");
+			result = creation;
+			if (result == null || result.isCompletedExceptionally())
+			{
+				result = new CompletableFuture<>();
+				creation = result;
+				execute(result);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Creates the value on the executor.
+	 *
+	 * @param result the future to complete
+	 */
+	private void execute(CompletableFuture<T> result)
+	{
+		try
+		{
+			executor.execute(() ->
+			{
+				if (result.isDone())
+					return;
+				T value;
+				try
+				{
+					value = createValue();
+				}
+				catch (Throwable t)
+				{
+					result.completeExceptionally(t);
+					return;
+				}
+				// close() cancelled the creation while it was in progress
+				if (!result.complete(value))
+					disposeValue(value);
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			result.completeExceptionally(e);
+		}
+	}
+
+	@Override
+	public boolean isInitialized()
+	{
+		CompletableFuture<T> result = creation;
+		return result != null && result.isDone() && !result.isCompletedExceptionally();
+	}
+
+	@Override
+	public final void close()
+	{
+		CompletableFuture<T> result;
+		synchronized (this)
+		{
+			if (closed)
+				return;
+			closed = true;
+			result = creation;
+		}
+		if (result == null || result.cancel(false) || result.isCompletedExceptionally())
+			return;
+		disposeValue(result.join());
+	}
+
+	@Override
+	public String toString()
+	{
+		boolean isInitialized = isInitialized();
+		StringBuilder result = new StringBuilder("AsyncLazyFactory\n" +
+			"{\n" +
+			"  initialized: " + isInitialized);
+		if (isInitialized)
+		{
+			result.append(",\n").
+				append("  value: ").append(creation.join());
+		}
+		result.append("\n").
+			append("  closed: ").append(closed).append("\n").
+			append("}");
+		return result.toString();
+	}
+}
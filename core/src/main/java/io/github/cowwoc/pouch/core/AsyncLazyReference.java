@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe reference that creates a value on an {@code Executor}.
+ * <p>
+ * Creation begins when {@link #start()}, {@link #getValueAsync()} or {@link #getValue()} is first invoked.
+ * Invoke {@code start()} ahead of time to prevent the first caller from blocking. If the value cannot be
+ * created, the next request retries.
+ * <p>
+ * The implementation is thread-safe.
+ *
+ * @param <T> the type of object being referenced
+ */
+public abstract class AsyncLazyReference<T> implements Reference<T>
+{
+	/**
+	 * Creates a new {@code AsyncLazyReference}.
+	 *
+	 * @param <T>      the type of value returned by the reference
+	 * @param supplier supplies the reference value
+	 * @param executor the executor that creates the value
+	 * @return a new {@code AsyncLazyReference}
+	 * @throws NullPointerException if {@code executor} is null
+	 */
+	public static <T> AsyncLazyReference<T> create(Supplier<T> supplier, Executor executor)
+	{
+		return new AsyncLazyReference<T>(executor)
+		{
+			@Override
+			protected T createValue()
+			{
+				return supplier.get();
+			}
+		};
+	}
+
+	private final Executor executor;
+	/**
+	 * The result of the latest attempt to create the value, or {@code null} if no attempt was made. Updates
+	 * are guarded by {@code this}.
+	 */
+	private volatile CompletableFuture<T> creation;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param executor the executor that creates the value
+	 * @throws NullPointerException if {@code executor} is null
+	 */
+	protected AsyncLazyReference(Executor executor)
+	{
+		if (executor == null)
+			throw new NullPointerException("executor may not be null");
+		this.executor = executor;
+	}
+
+	/**
+	 * Creates the value. This method is invoked on the executor.
+	 *
+	 * @return the value
+	 */
+	protected abstract T createValue();
+
+	/**
+	 * Starts creating the value, unless it is already being created.
+	 */
+	public final void start()
+	{
+		getCreation();
+	}
+
+	/**
+	 * Returns the value without blocking.
+	 *
+	 * @return a future that completes with the value, or completes exceptionally if the value could not be
+	 * 	created
+	 */
+	public final CompletableFuture<T> getValueAsync()
+	{
+		// Prevent callers from completing or cancelling the future that is shared by all callers
+		return getCreation().thenApply(value -> value);
+	}
+
+	/**
+	 * Returns the value, blocking until it is created.
+	 *
+	 * @return an object of type {@code <T>}
+	 */
+	@Override
+	public final T getValue()
+	{
+		try
+		{
+			return getCreation().join();
+		}
+		catch (CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw WrappedCheckedException.wrap(cause);
+		}
+	}
+
+	/**
+	 * Returns the latest attempt to create the value, starting a new attempt if necessary.
+	 *
+	 * @return the future result of the attempt
+	 */
+	private CompletableFuture<T> getCreation()
+	{
+		CompletableFuture<T> result = creation;
+		if (result != null && !result.isCompletedExceptionally())
+			return result;
+		synchronized (this)
+		{
+			result = creation;
+			if (result == null || result.isCompletedExceptionally())
+			{
+				CompletableFuture<T> attempt = new CompletableFuture<>();
+				creation = attempt;
+				try
+				{
+					executor.execute(() ->
+					{
+						try
+						{
+							attempt.complete(createValue());
+						}
+						catch (Throwable t)
+						{
+							attempt.completeExceptionally(t);
+						}
+					});
+				}
+				catch (RejectedExecutionException e)
+				{
+					attempt.completeExceptionally(e);
+				}
+				result = attempt;
+			}
+			return result;
+		}
+	}
+
+	@Override
+	public boolean isInitialized()
+	{
+		CompletableFuture<T> result = creation;
+		return result != null && result.isDone() && !result.isCompletedExceptionally();
+	}
+
+	@Override
+	public String toString()
+	{
+		boolean isInitialized = isInitialized();
+		StringBuilder result = new StringBuilder("AsyncLazyReference\n" +
+			"{\n" +
+			"  initialized: " + isInitialized);
+		if (isInitialized)
+		{
+			result.append(",\n").
+				append("  value: ").append(creation.join());
+		}
+		result.append("\n").
+			append("}");
+		return result.toString();
+	}
+}
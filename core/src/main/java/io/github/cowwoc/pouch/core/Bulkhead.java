@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of operations that may run at the same time.
+ * <p>
+ * Callers that cannot run immediately wait in a first-in, first-out queue. If the queue is full, or if a
+ * caller waits longer than its timeout, the caller is rejected instead of piling onto an overloaded resource.
+ * <p>
+ * Example:
+ * <pre>
+ * {@code
+ * if (!bulkhead.tryAcquire(Duration.ofSeconds(1)))
+ *   throw new ServiceUnavailableException();
+ * try
+ * {
+ *   ...
+ * }
+ * finally
+ * {
+ *   bulkhead.release();
+ * }
+ * }</pre>
+ * <p>
+ * Wait times, queue depths and rejections are reported to {@link Metrics#getCollector()}.
+ * <p>
+ * The implementation is thread-safe.
+ */
+public final class Bulkhead
+{
+	private final String name;
+	private final int maximumConcurrency;
+	private final int maximumQueueLength;
+	/**
+	 * Fair, so that callers are admitted in the order that they arrived.
+	 */
+	private final Semaphore permits;
+	/**
+	 * The number of callers that are waiting for a permit.
+	 */
+	private final AtomicInteger queueDepth = new AtomicInteger();
+
+	/**
+	 * Creates a new bulkhead.
+	 *
+	 * @param name               the name of the bulkhead, used to identify its metrics
+	 * @param maximumConcurrency the maximum number of operations that may run at the same time
+	 * @param maximumQueueLength the maximum number of callers that may wait for an operation to complete.
+	 *                           Callers that arrive when the queue is full are rejected immediately.
+	 * @throws NullPointerException     if {@code name} is null
+	 * @throws IllegalArgumentException if {@code maximumConcurrency} is zero or negative, or if
+	 *                                  {@code maximumQueueLength} is negative
+	 */
+	public Bulkhead(String name, int maximumConcurrency, int maximumQueueLength)
+	{
+		if (name == null)
+			throw new NullPointerException("name may not be null");
+		if (maximumConcurrency <= 0)
+			throw new IllegalArgumentException("maximumConcurrency must be positive.\n" +
+				"Actual: " + maximumConcurrency);
+		if (maximumQueueLength < 0)
+			throw new IllegalArgumentException("maximumQueueLength may not be negative.\n" +
+				"Actual: " + maximumQueueLength);
+		this.name = name;
+		this.maximumConcurrency = maximumConcurrency;
+		this.maximumQueueLength = maximumQueueLength;
+		this.permits = new Semaphore(maximumConcurrency, true);
+	}
+
+	/**
+	 * Returns the name of the bulkhead.
+	 *
+	 * @return the name of the bulkhead
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Returns the maximum number of operations that may run at the same time.
+	 *
+	 * @return the maximum number of operations that may run at the same time
+	 */
+	public int getMaximumConcurrency()
+	{
+		return maximumConcurrency;
+	}
+
+	/**
+	 * Returns the maximum number of callers that may wait for an operation to complete.
+	 *
+	 * @return the maximum number of callers that may wait for an operation to complete
+	 */
+	public int getMaximumQueueLength()
+	{
+		return maximumQueueLength;
+	}
+
+	/**
+	 * Returns the number of callers that are waiting for an operation to complete.
+	 *
+	 * @return the number of callers that are waiting for an operation to complete
+	 */
+	public int getQueueDepth()
+	{
+		return queueDepth.get();
+	}
+
+	/**
+	 * Returns the number of operations that are running.
+	 *
+	 * @return the number of operations that are running
+	 */
+	public int getActiveCount()
+	{
+		return maximumConcurrency - permits.availablePermits();
+	}
+
+	/**
+	 * Acquires permission to run an operation. On success, the caller must invoke {@link #release()} once the
+	 * operation completes.
+	 *
+	 * @param timeout the maximum amount of time to wait for permission
+	 * @return {@code false} if the queue is full or the timeout elapsed before permission was granted
+	 * @throws NullPointerException    if {@code timeout} is null
+	 * @throws WrappedCheckedException if the thread is interrupted while waiting
+	 */
+	public boolean tryAcquire(Duration timeout)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		MetricsCollector metrics = Metrics.getCollector();
+		// tryAcquire() without a timeout ignores fairness, so it would let this caller overtake waiting callers
+		try
+		{
+			if (permits.tryAcquire(0, TimeUnit.NANOSECONDS))
+			{
+				metrics.admitted(this, 0);
+				return true;
+			}
+		}
+		catch (InterruptedException e)
+		{
+			throw WrappedCheckedException.wrap(e);
+		}
+		long startTime = System.nanoTime();
+		int depth = queueDepth.incrementAndGet();
+		try
+		{
+			if (depth > maximumQueueLength)
+			{
+				metrics.rejected(this, 0);
+				return false;
+			}
+			metrics.queued(this, depth);
+			boolean acquired = permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+			long waitTime = System.nanoTime() - startTime;
+			if (acquired)
+				metrics.admitted(this, waitTime);
+			else
+				metrics.rejected(this, waitTime);
+			return acquired;
+		}
+		catch (InterruptedException e)
+		{
+			metrics.rejected(this, System.nanoTime() - startTime);
+			throw WrappedCheckedException.wrap(e);
+		}
+		finally
+		{
+			queueDepth.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Indicates that an operation completed, letting the next caller run.
+	 */
+	public void release()
+	{
+		permits.release();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Bulkhead\n" +
+			"{\n" +
+			"  name: " + name + ",\n" +
+			"  active: " + getActiveCount() + "/" + maximumConcurrency + ",\n" +
+			"  queued: " + queueDepth.get() + "/" + maximumQueueLength + "\n" +
+			"}";
+	}
+}
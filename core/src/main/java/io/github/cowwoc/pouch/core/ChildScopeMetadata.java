@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.time.Instant;
+import java.util.StringJoiner;
+
+/**
+ * Information about who created a scope.
+ */
+final class ChildScopeMetadata
+{
+	/**
+	 * The metadata of scopes that are not tracked.
+	 */
+	private static final ChildScopeMetadata UNTRACKED = new ChildScopeMetadata(null, 0, null);
+	/**
+	 * The thread that created the scope, or {@code null} if unknown.
+	 */
+	private final Thread thread;
+	/**
+	 * The time that the scope was created, in milliseconds since the epoch.
+	 */
+	private final long creationTime;
+	/**
+	 * The stack trace that created the scope, or {@code null} if it was not captured.
+	 */
+	private final Throwable stackTrace;
+
+	/**
+	 * Creates the metadata of a scope that is being created by the current thread.
+	 *
+	 * @param leakTracking determines the information that is recorded
+	 * @return the metadata
+	 */
+	static ChildScopeMetadata create(LeakTracking leakTracking)
+	{
+		if (leakTracking.getMode() == LeakTracking.Mode.OFF)
+			return UNTRACKED;
+		// The stack frames of a Throwable are only converted to StackTraceElements if the scope leaks
+		Throwable stackTrace;
+		if (leakTracking.shouldCaptureStackTrace())
+			stackTrace = new Throwable();
+		else
+			stackTrace = null;
+		return new ChildScopeMetadata(Thread.currentThread(), System.currentTimeMillis(), stackTrace);
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param thread       the thread that created the scope, or {@code null} if unknown
+	 * @param creationTime the time that the scope was created, in milliseconds since the epoch
+	 * @param stackTrace   the stack trace that created the scope, or {@code null} if it was not captured
+	 */
+	private ChildScopeMetadata(Thread thread, long creationTime, Throwable stackTrace)
+	{
+		this.thread = thread;
+		this.creationTime = creationTime;
+		this.stackTrace = stackTrace;
+	}
+
+	@Override
+	public String toString()
+	{
+		if (thread == null)
+			return "(leak tracking is disabled)";
+		StringBuilder result = new StringBuilder("created by ").append(thread.getName()).
+			append(" at ").append(Instant.ofEpochMilli(creationTime));
+		if (stackTrace != null)
+		{
+			StringJoiner joiner = new StringJoiner("\n\tat ", "\n\tat ", "");
+			for (StackTraceElement element : stackTrace.getStackTrace())
+				joiner.add(element.toString());
+			result.append(joiner);
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.time.Duration;
+
+/**
+ * Manages child scopes.
+ * <p>
+ * Implementations must be thread-safe.
+ * <p>
+ * <b>Preconditions that apply to all methods</b>:
+ * <ul>
+ * <li>Parent scope is not closed.</li>
+ * <li>Child scope implementations of {@code close()} are
+ * <a href="http://docs.oracle.com/javase/8/docs/api/java/lang/AutoCloseable.html#close--">idempotent</a>.</li>
+ * </ul>
+ */
+public interface ChildScopes
+{
+	/**
+	 * Adds a child scope.
+	 *
+	 * @param child the child scope
+	 * @throws NullPointerException     if {@code child} is null
+	 * @throws IllegalArgumentException if {@code child} was already added to this scope
+	 * @throws IllegalStateException    if shutdown has been requested
+	 */
+	void add(Scope child);
+
+	/**
+	 * Removes a child scope.
+	 *
+	 * @param child the child scope
+	 * @return {@code true} on success; {@code false} if the scope was not found
+	 * @throws NullPointerException if {@code child} is null
+	 */
+	boolean remove(Scope child);
+
+	/**
+	 * Returns the number of child scopes that are open.
+	 *
+	 * @return the number of child scopes that are open
+	 */
+	int size();
+
+	/**
+	 * Waits for all child scopes to be removed. Unlike {@link #shutdown(Duration)}, this method does not
+	 * prevent new children from being added, and does not close the children that remain open.
+	 *
+	 * @param timeout the maximum amount of time to wait
+	 * @return {@code true} if all children were removed; {@code false} if a timeout occurred
+	 * @throws NullPointerException if {@code timeout} is null
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	boolean awaitEmpty(Duration timeout) throws InterruptedException;
+
+	/**
+	 * Initiates a graceful shutdown of child scopes.
+	 *
+	 * @param timeout the amount of time to wait for the children to shut down on their own before invoking
+	 *                {@code close()} on them
+	 * @return {@code true} if all the children shut down gracefully, {@code false} if a shutdown is already in
+	 * 	progress or a timeout occurred
+	 * @throws WrappedCheckedException if the thread is interrupted or a child scope threw an exception while
+	 *                                 shutting down
+	 */
+	default boolean shutdown(Duration timeout)
+	{
+		return shutdown(timeout, ForcedClose.serial());
+	}
+
+	/**
+	 * Initiates a graceful shutdown of child scopes.
+	 *
+	 * @param timeout     the amount of time to wait for the children to shut down on their own before invoking
+	 *                    {@code close()} on them
+	 * @param forcedClose determines how {@code close()} is invoked on children that did not shut down on their
+	 *                    own
+	 * @return {@code true} if all the children shut down gracefully, {@code false} if a shutdown is already in
+	 * 	progress or a timeout occurred
+	 * @throws NullPointerException    if any of the arguments are null
+	 * @throws WrappedCheckedException if the thread is interrupted, a child scope threw an exception while
+	 *                                 shutting down, or {@code forcedClose} timed out
+	 */
+	boolean shutdown(Duration timeout, ForcedClose forcedClose);
+}
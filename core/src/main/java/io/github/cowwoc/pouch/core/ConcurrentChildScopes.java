@@ -11,56 +11,70 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages child scopes.
  * <p>
- * This class is thread-safe.
- * <p>
- * <b>Preconditions that apply to all methods</b>:
- * <ul>
- * <li>Parent scope is not closed.</li>
- * <li>Child scope implementations of {@code close()} are
- * <a href="http://docs.oracle.com/javase/8/docs/api/java/lang/AutoCloseable.html#close--">idempotent</a>.</li>
- * </ul>
+ * This class is thread-safe. Threads that add or remove child scopes contend on a shared {@code Phaser}. Use
+ * {@link StripedChildScopes} for scopes that create and close many children concurrently.
  */
-public final class ConcurrentChildScopes
+public final class ConcurrentChildScopes implements ChildScopes
 {
 	/**
 	 * A map from each child scope to its metadata.
 	 */
-	private final Map<Scope, Metadata> scopeToMetadata = new ConcurrentHashMap<>();
+	private final Map<Scope, ChildScopeMetadata> scopeToMetadata = new ConcurrentHashMap<>();
 	/**
 	 * Counts the number of open scopes.
 	 */
 	private final Phaser openScopes = new Phaser();
 	private final AtomicBoolean shutdownRequested = new AtomicBoolean();
+	/**
+	 * The number of threads that are waiting in {@link #awaitEmpty(Duration)}.
+	 */
+	private final AtomicInteger emptyWaiters = new AtomicInteger();
+	/**
+	 * Signaled when a child is removed while a thread is waiting for the children to be removed.
+	 */
+	private final Object childRemoved = new Object();
+	/**
+	 * Determines the information that is recorded about child scopes.
+	 */
+	private final LeakTracking leakTracking;
 	private final Logger log = LoggerFactory.getLogger(ConcurrentChildScopes.class);
 
 	/**
-	 * Creates a new ConcurrentChildScopes.
+	 * Creates a new ConcurrentChildScopes that uses {@link LeakTracking#getDefault() the default leak
+	 * tracking}.
 	 */
 	public ConcurrentChildScopes()
 	{
-		// Ensures that we are allowed to invoke arriveAndDeregister() even if there are no child scopes
-		openScopes.register();
+		this(LeakTracking.getDefault());
 	}
 
 	/**
-	 * Adds a child scope.
+	 * Creates a new ConcurrentChildScopes.
 	 *
-	 * @param child the child scope
-	 * @throws NullPointerException     if {@code child} is null
-	 * @throws IllegalArgumentException if {@code child} was already added to this scope
-	 * @throws IllegalStateException    if shutdown has been requested
+	 * @param leakTracking determines the information that is recorded about child scopes, in order to report
+	 *                     leaks
+	 * @throws NullPointerException if {@code leakTracking} is null
 	 */
+	public ConcurrentChildScopes(LeakTracking leakTracking)
+	{
+		if (leakTracking == null)
+			throw new NullPointerException("leakTracking may not be null");
+		this.leakTracking = leakTracking;
+		// Ensures that we are allowed to invoke arriveAndDeregister() even if there are no child scopes
+		openScopes.register();
+	}
+
+	@Override
 	public void add(Scope child)
 	{
 		if (child == null)
@@ -70,17 +84,11 @@ public final class ConcurrentChildScopes
 		openScopes.register();
 		try
 		{
-			Thread thread = Thread.currentThread();
-			Metadata existingValue = scopeToMetadata.putIfAbsent(child, new Metadata(thread));
+			ChildScopeMetadata existingValue = scopeToMetadata.putIfAbsent(child,
+				ChildScopeMetadata.create(leakTracking));
 			if (existingValue != null)
-			{
-				StringJoiner stackTrace = new StringJoiner("\n\tat ");
-				for (StackTraceElement element : existingValue.stackTrace)
-					stackTrace.add(element.toString());
-
-				throw new IllegalStateException("child was already added to this scope by " +
-					existingValue.thread.getName() + " at " + stackTrace);
-			}
+				throw new IllegalStateException("child was already added to this scope " +
+					existingValue);
 		}
 		catch (RuntimeException e)
 		{
@@ -89,13 +97,7 @@ public final class ConcurrentChildScopes
 		}
 	}
 
-	/**
-	 * Removes a child scope.
-	 *
-	 * @param child the child scope
-	 * @return {@code true} on success; {@code false} if the scope was not found
-	 * @throws NullPointerException if {@code child} is null
-	 */
+	@Override
 	public boolean remove(Scope child)
 	{
 		// Avoid checking shutdownRequested because children must be allowed to remove themselves while
@@ -104,22 +106,61 @@ public final class ConcurrentChildScopes
 			throw new NullPointerException("child may not be null");
 		boolean result = scopeToMetadata.remove(child) != null;
 		if (result)
+		{
 			openScopes.arriveAndDeregister();
+			if (emptyWaiters.get() > 0)
+			{
+				synchronized (childRemoved)
+				{
+					childRemoved.notifyAll();
+				}
+			}
+		}
 		return result;
 	}
 
-	/**
-	 * Initiates a graceful shutdown of child scopes.
-	 *
-	 * @param timeout the amount of time to wait for the children to shut down on their own before invoking
-	 *                {@code close()} on them
-	 * @return {@code true} if all the children shut down gracefully, {@code false} if a shutdown is already in
-	 * 	progress or a timeout occurred
-	 * @throws WrappedCheckedException if the thread is interrupted or a child scope threw an exception while
-	 *                                 shutting down
-	 */
-	public boolean shutdown(Duration timeout)
+	@Override
+	public int size()
 	{
+		return scopeToMetadata.size();
+	}
+
+	@Override
+	public boolean awaitEmpty(Duration timeout) throws InterruptedException
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		long deadline = System.nanoTime() + timeout.toNanos();
+		// Register before checking the number of children. Either remove() sees the waiter and signals it, or
+		// this thread sees the removal.
+		emptyWaiters.incrementAndGet();
+		try
+		{
+			synchronized (childRemoved)
+			{
+				while (!scopeToMetadata.isEmpty())
+				{
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0)
+						return false;
+					TimeUnit.NANOSECONDS.timedWait(childRemoved, remaining);
+				}
+			}
+			return true;
+		}
+		finally
+		{
+			emptyWaiters.decrementAndGet();
+		}
+	}
+
+	@Override
+	public boolean shutdown(Duration timeout, ForcedClose forcedClose)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		if (forcedClose == null)
+			throw new NullPointerException("forcedClose may not be null");
 		if (!shutdownRequested.compareAndSet(false, true))
 			return false;
 		List<Exception> exceptions = new ArrayList<>();
@@ -140,25 +181,7 @@ public final class ConcurrentChildScopes
 		{
 			result = false;
 		}
-		for (Entry<Scope, Metadata> scopeToMetadata : scopeToMetadata.entrySet())
-		{
-			try
-			{
-				Scope scope = scopeToMetadata.getKey();
-				Metadata metadata = scopeToMetadata.getValue();
-				StringJoiner stackTrace = new StringJoiner("\n\tat ");
-				for (StackTraceElement element : metadata.stackTrace)
-					stackTrace.add(element.toString());
-
-				log.warn("Thread {} leaked child scope {} created at {}", metadata.thread.getName(), scope,
-					stackTrace);
-				scope.close();
-			}
-			catch (Exception e)
-			{
-				exceptions.add(e);
-			}
-		}
+		forcedClose.close(scopeToMetadata, log, exceptions);
 		if (!exceptions.isEmpty())
 		{
 			Exception mainException = exceptions.get(0);
@@ -168,27 +191,4 @@ public final class ConcurrentChildScopes
 		}
 		return result;
 	}
-
-	/**
-	 * Information about who created a scope.
-	 */
-	private static class Metadata
-	{
-		public final Thread thread;
-		public final StackTraceElement[] stackTrace;
-
-		/**
-		 * Creates a new instance.
-		 *
-		 * @param thread the thread that created the scope
-		 * @throws NullPointerException if any of the arguments are null
-		 */
-		public Metadata(Thread thread)
-		{
-			if (thread == null)
-				throw new NullPointerException("thread may not be null");
-			this.thread = thread;
-			this.stackTrace = thread.getStackTrace();
-		}
-	}
-}
\ No newline at end of file
+}
@@ -4,26 +4,43 @@
  */
 package io.github.cowwoc.pouch.core;
 
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import io.github.cowwoc.pouch.core.FailurePolicy.RecentFailure;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * A thread-safe factory that initializes a value on demand.
  * <p>
- * The implementation is thread-safe.
+ * The implementation is thread-safe. Once the value is initialized, {@link #getValue()} does not acquire any
+ * locks or perform any atomic updates. As a result, {@link #close()} does not wait for concurrent readers:
+ * it may dispose a value that a concurrent invocation of {@code getValue()} just returned. Invocations of
+ * {@code getValue()} that begin after {@code close()} returns throw {@code IllegalStateException}.
  *
  * @param <T> the type of the value
  */
 public abstract class ConcurrentLazyFactory<T> implements Factory<T>
 {
 	/**
-	 * Creates a new instance.
+	 * Creates a new instance that lets the next caller retry as soon as {@code createValue()} fails.
 	 */
 	protected ConcurrentLazyFactory()
 	{
+		this(FailurePolicy.retryImmediately());
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param failurePolicy determines how callers respond to {@code createValue()} failing
+	 * @throws NullPointerException if {@code failurePolicy} is null
+	 */
+	protected ConcurrentLazyFactory(FailurePolicy failurePolicy)
+	{
+		if (failurePolicy == null)
+			throw new NullPointerException("failurePolicy may not be null");
+		this.failurePolicy = failurePolicy;
 	}
 
 	/**
@@ -36,7 +53,23 @@ public abstract class ConcurrentLazyFactory<T> implements Factory<T>
 	 */
 	public static <T> ConcurrentLazyFactory<T> create(Supplier<T> supplier, Consumer<T> disposer)
 	{
-		return new ConcurrentLazyFactory<T>()
+		return create(supplier, disposer, FailurePolicy.retryImmediately());
+	}
+
+	/**
+	 * Creates a new {@code ConcurrentLazyFactory}.
+	 *
+	 * @param <T>           the type of value returned by the factory
+	 * @param supplier      supplies the factory value
+	 * @param disposer      implements {@link #disposeValue(java.lang.Object) disposeValue(T)}
+	 * @param failurePolicy determines how callers respond to {@code supplier} failing
+	 * @return a new {@code ConcurrentLazyFactory}
+	 * @throws NullPointerException if {@code failurePolicy} is null
+	 */
+	public static <T> ConcurrentLazyFactory<T> create(Supplier<T> supplier, Consumer<T> disposer,
+		FailurePolicy failurePolicy)
+	{
+		return new ConcurrentLazyFactory<T>(failurePolicy)
 		{
 			@Override
 			protected T createValue()
@@ -76,21 +109,55 @@ public abstract class ConcurrentLazyFactory<T> implements Factory<T>
 		});
 	}
 
-	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-	private final ReadLock readLock = lock.readLock();
-	private final WriteLock writeLock = lock.writeLock();
 	/**
-	 * {@code true} if the value was created.
+	 * The value has not been created yet.
 	 */
-	private boolean initialized;
+	private static final int UNINITIALIZED = 0;
+	/**
+	 * A thread is creating the value.
+	 */
+	private static final int CREATING = 1;
+	/**
+	 * The value was created.
+	 */
+	private static final int READY = 2;
+	/**
+	 * A thread is disposing the value.
+	 */
+	private static final int CLOSING = 3;
 	/**
-	 * {@code true} if the factory was closed.
+	 * The factory was closed.
 	 */
-	private boolean closed;
+	private static final int CLOSED = 4;
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<ConcurrentLazyFactory> STATE =
+		AtomicIntegerFieldUpdater.newUpdater(ConcurrentLazyFactory.class, "state");
 	/**
-	 * The value.
+	 * The state of the factory. State transitions are
+	 * {@code UNINITIALIZED -> CREATING -> READY -> CLOSING -> CLOSED}, {@code CREATING -> UNINITIALIZED} if
+	 * the value could not be created and {@code UNINITIALIZED -> CLOSED} if the factory is closed before the
+	 * value is created. Threads that must wait for a transition to complete block on {@code this}.
+	 */
+	private volatile int state = UNINITIALIZED;
+	/**
+	 * {@code true} if the value was created. This variable uses
+	 * <a href="http://stackoverflow.com/a/6169551/14731">piggybacking synchronization</a> on {@code state}.
+	 */
+	private boolean initialized;
+	/**
+	 * The value. This variable uses <a href="http://stackoverflow.com/a/6169551/14731">piggybacking
+	 * synchronization</a> on {@code state}.
 	 */
 	private T value;
+	/**
+	 * The thread that is creating or disposing the value, or {@code null} if neither is in progress.
+	 */
+	private Thread owner;
+	private final FailurePolicy failurePolicy;
+	/**
+	 * The last time that {@code createValue()} failed, or {@code null} if callers may retry immediately.
+	 */
+	private volatile RecentFailure recentFailure;
 
 	/**
 	 * Creates the value. This method is invoked the first time {@link #getValue()} is invoked.
@@ -114,94 +181,210 @@ public abstract class ConcurrentLazyFactory<T> implements Factory<T>
 	 * Returns the value. Subsequent invocations of this method return the same value.
 	 *
 	 * @return an object of type {@code <T>}
-	 * @throws IllegalStateException if the factory is closed
+	 * @throws IllegalStateException if the factory is closed, if {@code createValue()} invokes this method or
+	 *                               if {@code createValue()} failed recently and the {@link FailurePolicy}
+	 *                               does not permit a retry yet
 	 */
 	@Override
 	public final T getValue()
 	{
-		readLock.lock();
-		try
+		if (state == READY)
+			return value;
+		return getValueSlowPath();
+	}
+
+	/**
+	 * Creates the value or waits for another thread to do so.
+	 *
+	 * @return the value
+	 * @throws IllegalStateException if the factory is closed, if {@code createValue()} invokes this method or
+	 *                               if {@code createValue()} failed recently and the {@link FailurePolicy}
+	 *                               does not permit a retry yet
+	 */
+	private T getValueSlowPath()
+	{
+		while (true)
 		{
-			if (closed)
-				throw new IllegalStateException("Factory is closed");
-			if (!initialized)
+			switch (state)
 			{
-				readLock.unlock();
-				writeLock.lock();
-				try
+				case UNINITIALIZED:
 				{
-					if (closed)
-						throw new IllegalStateException("Factory is closed");
-					if (!initialized)
-					{
-						this.value = createValue();
-						initialized = true;
-					}
+					// Fail fast instead of repeating an attempt that failed recently
+					RecentFailure failure = recentFailure;
+					if (failure != null)
+						failure.throwIfActive();
+					if (STATE.compareAndSet(this, UNINITIALIZED, CREATING))
+						return create();
+					break;
 				}
-				finally
+				case CREATING:
 				{
-					writeLock.unlock();
-					readLock.lock();
+					awaitTransition(CREATING);
+					break;
 				}
+				case READY:
+					return value;
+				default:
+					throw new IllegalStateException("Factory is closed");
 			}
-			return this.value;
+		}
+	}
+
+	/**
+	 * Creates the value. The caller must have transitioned the state from {@code UNINITIALIZED} to
+	 * {@code CREATING}.
+	 *
+	 * @return the value
+	 */
+	private T create()
+	{
+		owner = Thread.currentThread();
+		MetricsCollector metrics = Metrics.getCollector();
+		long start = System.nanoTime();
+		boolean created = false;
+		try
+		{
+			T result = createValue();
+			metrics.valueCreated(this, System.nanoTime() - start);
+			recentFailure = null;
+			this.value = result;
+			initialized = true;
+			created = true;
+			return result;
+		}
+		catch (Throwable t)
+		{
+			metrics.valueCreationFailed(this, System.nanoTime() - start);
+			recentFailure = failurePolicy.onFailure(recentFailure, t);
+			throw t;
 		}
 		finally
 		{
-			readLock.unlock();
+			// createValue() may throw checked exceptions that the compiler does not know about. Waiting threads
+			// must be woken up regardless of how it failed.
+			owner = null;
+			if (created)
+				transition(READY);
+			else
+				transition(UNINITIALIZED);
+		}
+	}
+
+	/**
+	 * Sets the state and wakes up any threads that are waiting for it to change.
+	 *
+	 * @param newState the new state
+	 */
+	private void transition(int newState)
+	{
+		synchronized (this)
+		{
+			state = newState;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Blocks until the state changes.
+	 *
+	 * @param currentState the state to wait on
+	 * @throws IllegalStateException if the current thread is creating the value
+	 */
+	private void awaitTransition(int currentState)
+	{
+		if (currentState == CREATING && owner == Thread.currentThread())
+			throw new IllegalStateException("createValue() may not invoke getValue() or close()");
+		boolean interrupted = false;
+		synchronized (this)
+		{
+			while (state == currentState)
+			{
+				try
+				{
+					wait();
+				}
+				catch (InterruptedException e)
+				{
+					// Match the uninterruptible behavior of Lock.lock()
+					interrupted = true;
+				}
+			}
 		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
 	}
 
 	@Override
 	public boolean isInitialized()
 	{
-		return initialized;
+		return state >= READY && initialized;
 	}
 
 	@Override
 	public final void close()
 	{
-		readLock.lock();
-		try
+		while (true)
 		{
-			if (closed)
-				return;
-			readLock.unlock();
-			writeLock.lock();
-			try
+			switch (state)
 			{
-				if (closed)
+				case UNINITIALIZED:
+				{
+					if (STATE.compareAndSet(this, UNINITIALIZED, CLOSED))
+						return;
+					break;
+				}
+				case CREATING:
+				{
+					// Closing is mutually exclusive with creation
+					awaitTransition(CREATING);
+					break;
+				}
+				case READY:
+				{
+					if (STATE.compareAndSet(this, READY, CLOSING))
+					{
+						owner = Thread.currentThread();
+						try
+						{
+							disposeValue(value);
+						}
+						finally
+						{
+							owner = null;
+							transition(CLOSED);
+						}
+						return;
+					}
+					break;
+				}
+				case CLOSING:
+				{
+					// Wait for the other thread to finish disposing the value
+					if (owner != Thread.currentThread())
+						awaitTransition(CLOSING);
 					return;
-				closed = true;
-				if (!initialized)
+				}
+				default:
 					return;
-				disposeValue(value);
-			}
-			finally
-			{
-				writeLock.unlock();
-				readLock.lock();
 			}
 		}
-		finally
-		{
-			readLock.unlock();
-		}
 	}
 
 	@Override
 	public String toString()
 	{
+		int currentState = state;
+		boolean isInitialized = currentState >= READY && initialized;
 		StringBuilder result = new StringBuilder("ConcurrentLazyFactory\n" +
 			"{\n" +
-			"  initialized: " + initialized);
-		if (initialized)
+			"  initialized: " + isInitialized);
+		if (isInitialized)
 		{
 			result.append(",\n").
-				append("  value: ").append(getValue());
+				append("  value: ").append(value);
 		}
 		result.append("\n").
-			append("  closed: ").append(closed).append("\n").
+			append("  closed: ").append(currentState >= CLOSING).append("\n").
 			append("}");
 		return result.toString();
 	}
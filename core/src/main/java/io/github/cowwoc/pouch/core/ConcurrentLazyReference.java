@@ -4,6 +4,8 @@
  */
 package io.github.cowwoc.pouch.core;
 
+import io.github.cowwoc.pouch.core.FailurePolicy.RecentFailure;
+
 import java.util.function.Supplier;
 
 /**
@@ -16,10 +18,24 @@ import java.util.function.Supplier;
 public abstract class ConcurrentLazyReference<T> implements Reference<T>
 {
 	/**
-	 * Creates a new instance.
+	 * Creates a new instance that lets the next caller retry as soon as {@code createValue()} fails.
 	 */
 	protected ConcurrentLazyReference()
 	{
+		this(FailurePolicy.retryImmediately());
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param failurePolicy determines how callers respond to {@code createValue()} failing
+	 * @throws NullPointerException if {@code failurePolicy} is null
+	 */
+	protected ConcurrentLazyReference(FailurePolicy failurePolicy)
+	{
+		if (failurePolicy == null)
+			throw new NullPointerException("failurePolicy may not be null");
+		this.failurePolicy = failurePolicy;
 	}
 
 	/**
@@ -31,7 +47,21 @@ public abstract class ConcurrentLazyReference<T> implements Reference<T>
 	 */
 	public static <T> ConcurrentLazyReference<T> create(Supplier<T> supplier)
 	{
-		return new ConcurrentLazyReference<T>()
+		return create(supplier, FailurePolicy.retryImmediately());
+	}
+
+	/**
+	 * Creates a new {@code ConcurrentLazyReference}.
+	 *
+	 * @param <T>           the type of value returned by the reference
+	 * @param supplier      supplies the reference value
+	 * @param failurePolicy determines how callers respond to {@code supplier} failing
+	 * @return a new {@code ConcurrentLazyReference}
+	 * @throws NullPointerException if {@code failurePolicy} is null
+	 */
+	public static <T> ConcurrentLazyReference<T> create(Supplier<T> supplier, FailurePolicy failurePolicy)
+	{
+		return new ConcurrentLazyReference<T>(failurePolicy)
 		{
 			@Override
 			protected T createValue()
@@ -50,6 +80,12 @@ public abstract class ConcurrentLazyReference<T> implements Reference<T>
 	 * synchronization</a>.
 	 */
 	private T value;
+	private final FailurePolicy failurePolicy;
+	/**
+	 * The last time that {@code createValue()} failed, or {@code null} if callers may retry immediately.
+	 * Guarded by {@code this}.
+	 */
+	private RecentFailure recentFailure;
 
 	/**
 	 * Returns {@code true} if the value was initialized.
@@ -70,7 +106,24 @@ public abstract class ConcurrentLazyReference<T> implements Reference<T>
 			{
 				if (!initialized)
 				{
-					this.value = createValue();
+					// Fail fast instead of repeating an attempt that failed recently
+					if (recentFailure != null)
+						recentFailure.throwIfActive();
+					MetricsCollector metrics = Metrics.getCollector();
+					long start = System.nanoTime();
+					try
+					{
+						this.value = createValue();
+					}
+					catch (Throwable t)
+					{
+						// createValue() may throw checked exceptions that the compiler does not know about
+						metrics.valueCreationFailed(this, System.nanoTime() - start);
+						recentFailure = failurePolicy.onFailure(recentFailure, t);
+						throw t;
+					}
+					metrics.valueCreated(this, System.nanoTime() - start);
+					recentFailure = null;
 					initialized = true;
 				}
 			}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Binds a scope to the current thread for the duration of a task, so that code which does not receive the
+ * scope as a parameter can look it up.
+ * <p>
+ * Bindings are not inherited by threads that the task starts. Use {@link #fork(Callable, Executor)} to run
+ * subtasks on other threads. Each subtask sees the same scope as the task that forked it, and is registered
+ * as a child of that scope so that closing the scope waits for the subtask to complete.
+ * <p>
+ * Example:
+ * <pre>
+ * {@code
+ * CurrentScope.run(requestScope, () ->
+ * {
+ *   CompletableFuture<User> user = CurrentScope.fork(() -> loadUser(), executor);
+ *   CompletableFuture<Orders> orders = CurrentScope.fork(() -> loadOrders(), executor);
+ *   render(user.join(), orders.join());
+ * });
+ *
+ * private User loadUser()
+ * {
+ *   RequestScope scope = CurrentScope.get(RequestScope.class);
+ *   ...
+ * }
+ * }</pre>
+ * <p>
+ * The bindings are stored in a {@code ThreadLocal} because this library targets JDK 8. Unlike an
+ * {@code InheritableThreadLocal}, the binding is only copied to the threads that run forked subtasks.
+ * <p>
+ * The implementation is thread-safe.
+ */
+public final class CurrentScope
+{
+	/**
+	 * The scope that is bound to each thread.
+	 */
+	private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Prevent construction.
+	 */
+	private CurrentScope()
+	{
+	}
+
+	/**
+	 * Runs a task with a scope bound to the current thread. The previous binding, if any, is restored when
+	 * the task completes.
+	 *
+	 * @param scope the scope to bind
+	 * @param task  the task to run
+	 * @throws NullPointerException if any of the arguments are null
+	 */
+	public static void run(Scope scope, Runnable task)
+	{
+		if (scope == null)
+			throw new NullPointerException("scope may not be null");
+		if (task == null)
+			throw new NullPointerException("task may not be null");
+		Scope previous = CURRENT.get();
+		CURRENT.set(scope);
+		try
+		{
+			task.run();
+		}
+		finally
+		{
+			restore(previous);
+		}
+	}
+
+	/**
+	 * Runs a task with a scope bound to the current thread. The previous binding, if any, is restored when
+	 * the task completes.
+	 *
+	 * @param <V>   the type of value returned by the task
+	 * @param scope the scope to bind
+	 * @param task  the task to run
+	 * @return the value returned by the task
+	 * @throws NullPointerException if any of the arguments are null
+	 * @throws Exception            if the task throws an exception
+	 */
+	public static <V> V call(Scope scope, Callable<V> task) throws Exception
+	{
+		if (scope == null)
+			throw new NullPointerException("scope may not be null");
+		if (task == null)
+			throw new NullPointerException("task may not be null");
+		Scope previous = CURRENT.get();
+		CURRENT.set(scope);
+		try
+		{
+			return task.call();
+		}
+		finally
+		{
+			restore(previous);
+		}
+	}
+
+	/**
+	 * Restores the binding that preceded a task.
+	 *
+	 * @param previous the previous binding; {@code null} if no scope was bound
+	 */
+	private static void restore(Scope previous)
+	{
+		// Removing the entry prevents pooled threads from retaining closed scopes
+		if (previous == null)
+			CURRENT.remove();
+		else
+			CURRENT.set(previous);
+	}
+
+	/**
+	 * Indicates if a scope is bound to the current thread.
+	 *
+	 * @return {@code true} if a scope is bound to the current thread
+	 */
+	public static boolean isBound()
+	{
+		return CURRENT.get() != null;
+	}
+
+	/**
+	 * Returns the scope that is bound to the current thread.
+	 *
+	 * @return the scope
+	 * @throws IllegalStateException if no scope is bound to the current thread
+	 */
+	public static Scope get()
+	{
+		Scope scope = CURRENT.get();
+		if (scope == null)
+			throw new IllegalStateException("No scope is bound to the current thread");
+		return scope;
+	}
+
+	/**
+	 * Returns the scope that is bound to the current thread.
+	 *
+	 * @param <S>  the type of the scope
+	 * @param type the type of the scope
+	 * @return the scope
+	 * @throws NullPointerException  if {@code type} is null
+	 * @throws IllegalStateException if no scope is bound to the current thread, or if the scope is not an
+	 *                               instance of {@code type}
+	 */
+	public static <S extends Scope> S get(Class<S> type)
+	{
+		if (type == null)
+			throw new NullPointerException("type may not be null");
+		Scope scope = get();
+		if (!type.isInstance(scope))
+		{
+			throw new IllegalStateException("The current scope is not a " + type.getName() + ".\n" +
+				"Actual: " + scope.getClass().getName());
+		}
+		return type.cast(scope);
+	}
+
+	/**
+	 * Runs a subtask on an executor with the current thread's scope bound to it. The subtask is registered as
+	 * a child of the scope until it completes, so closing the scope waits for it. If the scope gives up
+	 * waiting and closes the subtask, the subtask is cancelled and its thread is interrupted.
+	 *
+	 * @param <V>      the type of value returned by the subtask
+	 * @param task     the subtask
+	 * @param executor the executor that runs the subtask
+	 * @return the result of the subtask
+	 * @throws NullPointerException  if any of the arguments are null
+	 * @throws IllegalStateException if no scope is bound to the current thread, or if the scope is closed
+	 */
+	public static <V> CompletableFuture<V> fork(Callable<V> task, Executor executor)
+	{
+		if (task == null)
+			throw new NullPointerException("task may not be null");
+		if (executor == null)
+			throw new NullPointerException("executor may not be null");
+		Scope parent = get();
+		Subtask<V> subtask = new Subtask<>(parent, task);
+		parent.addChild(subtask);
+		try
+		{
+			executor.execute(subtask);
+		}
+		catch (RuntimeException | Error e)
+		{
+			subtask.detach();
+			throw e;
+		}
+		return subtask.result;
+	}
+
+	/**
+	 * A task that was forked from a scope.
+	 *
+	 * @param <V> the type of value returned by the task
+	 */
+	private static final class Subtask<V> implements Scope, Runnable
+	{
+		private final Scope parent;
+		private final Callable<V> task;
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+		/**
+		 * {@code true} if the subtask was removed from its parent.
+		 */
+		private final AtomicBoolean detached = new AtomicBoolean();
+		/**
+		 * The thread that is running the task; {@code null} if the task is not running. Guarded by
+		 * {@code this}.
+		 */
+		private Thread runner;
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param parent the scope that forked the task
+		 * @param task   the task
+		 */
+		Subtask(Scope parent, Callable<V> task)
+		{
+			this.parent = parent;
+			this.task = task;
+		}
+
+		@Override
+		public void run()
+		{
+			synchronized (this)
+			{
+				if (result.isDone())
+				{
+					// The subtask was closed before it started
+					detach();
+					return;
+				}
+				runner = Thread.currentThread();
+			}
+			try
+			{
+				result.complete(call(parent, task));
+			}
+			catch (Throwable t)
+			{
+				result.completeExceptionally(t);
+			}
+			finally
+			{
+				synchronized (this)
+				{
+					runner = null;
+				}
+				// Avoid leaking the interrupt from close() to the executor's next task
+				if (result.isCancelled())
+					Thread.interrupted();
+				detach();
+			}
+		}
+
+		/**
+		 * Removes the subtask from its parent.
+		 */
+		void detach()
+		{
+			if (detached.compareAndSet(false, true))
+				parent.removeChild(this);
+		}
+
+		@Override
+		public void addChild(Scope child)
+		{
+			// Subtasks bind their parent scope, so subtasks forked by a subtask are registered with the parent.
+			// Children of the subtask are registered with the parent for the same reason.
+			parent.addChild(child);
+		}
+
+		@Override
+		public void removeChild(Scope child)
+		{
+			parent.removeChild(child);
+		}
+
+		@Override
+		public boolean isClosed()
+		{
+			return result.isDone();
+		}
+
+		@Override
+		public void close()
+		{
+			if (!result.cancel(false))
+				return;
+			synchronized (this)
+			{
+				if (runner != null)
+				{
+					// run() detaches the subtask once the task responds to the interrupt
+					runner.interrupt();
+					return;
+				}
+			}
+			detach();
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Subtask\n" +
+				"{\n" +
+				"  task: " + task + ",\n" +
+				"  done: " + result.isDone() + "\n" +
+				"}";
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.time.Duration;
+
+/**
+ * Determines how {@link ConcurrentLazyReference} and {@link ConcurrentLazyFactory} respond to
+ * {@code createValue()} throwing an exception.
+ * <p>
+ * The implementation is thread-safe.
+ */
+public final class FailurePolicy
+{
+	private static final FailurePolicy RETRY_IMMEDIATELY = new FailurePolicy(0, 0);
+	/**
+	 * The amount of time to wait after the first failure, in nanoseconds.
+	 */
+	private final long initialDelay;
+	/**
+	 * The maximum amount of time to wait after a failure, in nanoseconds.
+	 */
+	private final long maximumDelay;
+
+	/**
+	 * Returns a policy that lets the next caller retry as soon as an attempt fails. This is the default.
+	 *
+	 * @return a failure policy
+	 */
+	public static FailurePolicy retryImmediately()
+	{
+		return RETRY_IMMEDIATELY;
+	}
+
+	/**
+	 * Returns a policy that remembers a failure for a period of time. During that period, callers fail
+	 * immediately with an exception that is caused by the failure instead of retrying. The period starts at
+	 * {@code initialDelay} and doubles after each consecutive failure, up to {@code maximumDelay}.
+	 *
+	 * @param initialDelay the amount of time to wait after the first failure
+	 * @param maximumDelay the maximum amount of time to wait after a failure
+	 * @return a failure policy
+	 * @throws NullPointerException     if any of the arguments are null
+	 * @throws IllegalArgumentException if {@code initialDelay} is zero or negative, or if
+	 *                                  {@code maximumDelay} is less than {@code initialDelay}
+	 */
+	public static FailurePolicy backoff(Duration initialDelay, Duration maximumDelay)
+	{
+		if (initialDelay == null)
+			throw new NullPointerException("initialDelay may not be null");
+		if (maximumDelay == null)
+			throw new NullPointerException("maximumDelay may not be null");
+		if (initialDelay.isNegative() || initialDelay.isZero())
+			throw new IllegalArgumentException("initialDelay must be positive.\n" +
+				"Actual: " + initialDelay);
+		if (maximumDelay.compareTo(initialDelay) < 0)
+			throw new IllegalArgumentException("maximumDelay may not be less than initialDelay.\n" +
+				"maximumDelay: " + maximumDelay + "\n" +
+				"initialDelay: " + initialDelay);
+		return new FailurePolicy(initialDelay.toNanos(), maximumDelay.toNanos());
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param initialDelay the amount of time to wait after the first failure, in nanoseconds
+	 * @param maximumDelay the maximum amount of time to wait after a failure, in nanoseconds
+	 */
+	private FailurePolicy(long initialDelay, long maximumDelay)
+	{
+		this.initialDelay = initialDelay;
+		this.maximumDelay = maximumDelay;
+	}
+
+	/**
+	 * Records a failure.
+	 *
+	 * @param previous the previous consecutive failure, or {@code null} if the last attempt succeeded
+	 * @param cause    the exception thrown by {@code createValue()}
+	 * @return the failure to remember, or {@code null} if failures should not be remembered
+	 */
+	RecentFailure onFailure(RecentFailure previous, Throwable cause)
+	{
+		if (initialDelay == 0)
+			return null;
+		int consecutiveFailures;
+		if (previous == null)
+			consecutiveFailures = 1;
+		else
+			consecutiveFailures = previous.consecutiveFailures + 1;
+		long delay;
+		// Avoid overflowing the shift
+		if (consecutiveFailures > 62 || initialDelay > (maximumDelay >> (consecutiveFailures - 1)))
+			delay = maximumDelay;
+		else
+			delay = initialDelay << (consecutiveFailures - 1);
+		return new RecentFailure(cause, consecutiveFailures, System.nanoTime() + delay);
+	}
+
+	@Override
+	public String toString()
+	{
+		if (initialDelay == 0)
+			return "FailurePolicy.retryImmediately()";
+		return "FailurePolicy.backoff(" + Duration.ofNanos(initialDelay) + ", " +
+			Duration.ofNanos(maximumDelay) + ")";
+	}
+
+	/**
+	 * A failure that callers should not retry until a point in time.
+	 */
+	static final class RecentFailure
+	{
+		private final Throwable cause;
+		private final int consecutiveFailures;
+		/**
+		 * The time at which callers may retry, relative to {@code System.nanoTime()}.
+		 */
+		private final long retryAt;
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param cause               the exception thrown by {@code createValue()}
+		 * @param consecutiveFailures the number of attempts that failed in a row
+		 * @param retryAt             the time at which callers may retry, relative to {@code System.nanoTime()}
+		 */
+		RecentFailure(Throwable cause, int consecutiveFailures, long retryAt)
+		{
+			this.cause = cause;
+			this.consecutiveFailures = consecutiveFailures;
+			this.retryAt = retryAt;
+		}
+
+		/**
+		 * Returns the number of attempts that failed in a row.
+		 *
+		 * @return the number of attempts that failed in a row
+		 */
+		int getConsecutiveFailures()
+		{
+			return consecutiveFailures;
+		}
+
+		/**
+		 * Returns the time at which callers may retry.
+		 *
+		 * @return the time at which callers may retry, relative to {@code System.nanoTime()}
+		 */
+		long getRetryAt()
+		{
+			return retryAt;
+		}
+
+		/**
+		 * Fails fast if callers may not retry yet.
+		 *
+		 * @throws IllegalStateException if callers may not retry yet
+		 */
+		void throwIfActive()
+		{
+			long remaining = retryAt - System.nanoTime();
+			if (remaining > 0)
+			{
+				throw new IllegalStateException("createValue() failed " + consecutiveFailures +
+					" time(s) in a row. Retrying in " + Duration.ofNanos(remaining) + ".", cause);
+			}
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Determines how {@link ChildScopes#shutdown(Duration, ForcedClose)} closes child scopes that did not shut
+ * down on their own.
+ * <p>
+ * The implementation is thread-safe.
+ */
+public final class ForcedClose
+{
+	private static final ForcedClose SERIAL = new ForcedClose(1, null, null);
+
+	/**
+	 * Closes leaked child scopes one at a time, on the thread that invoked {@code shutdown()}.
+	 *
+	 * @return a forced close configuration
+	 */
+	public static ForcedClose serial()
+	{
+		return SERIAL;
+	}
+
+	/**
+	 * Closes leaked child scopes concurrently.
+	 * <p>
+	 * On JDK 21 or newer, use {@code Thread.ofVirtual().factory()} to close scopes on virtual threads.
+	 *
+	 * @param parallelism   the maximum number of scopes to close at the same time
+	 * @param timeout       the maximum amount of time to wait for all the leaked scopes to close. Scopes that
+	 *                      are still closing after this amount of time are interrupted and reported as a
+	 *                      {@code TimeoutException}.
+	 * @param threadFactory creates the threads that close the scopes
+	 * @return a forced close configuration
+	 * @throws NullPointerException     if any of the arguments are null
+	 * @throws IllegalArgumentException if {@code parallelism} is less than 1, or if {@code timeout} is negative
+	 */
+	public static ForcedClose parallel(int parallelism, Duration timeout, ThreadFactory threadFactory)
+	{
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be positive.\n" +
+				"Actual: " + parallelism);
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		if (timeout.isNegative())
+			throw new IllegalArgumentException("timeout may not be negative.\n" +
+				"Actual: " + timeout);
+		if (threadFactory == null)
+			throw new NullPointerException("threadFactory may not be null");
+		return new ForcedClose(parallelism, timeout, threadFactory);
+	}
+
+	/**
+	 * Closes leaked child scopes concurrently, on daemon threads.
+	 *
+	 * @param parallelism the maximum number of scopes to close at the same time
+	 * @param timeout     the maximum amount of time to wait for all the leaked scopes to close. Scopes that are
+	 *                    still closing after this amount of time are interrupted and reported as a
+	 *                    {@code TimeoutException}.
+	 * @return a forced close configuration
+	 * @throws NullPointerException     if {@code timeout} is null
+	 * @throws IllegalArgumentException if {@code parallelism} is less than 1, or if {@code timeout} is negative
+	 */
+	public static ForcedClose parallel(int parallelism, Duration timeout)
+	{
+		return parallel(parallelism, timeout, runnable ->
+		{
+			Thread thread = new Thread(runnable, "ForcedClose");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private final int parallelism;
+	/**
+	 * The maximum amount of time to wait for leaked scopes to close; {@code null} if scopes are closed
+	 * serially.
+	 */
+	private final Duration timeout;
+	/**
+	 * Creates the threads that close the scopes; {@code null} if scopes are closed serially.
+	 */
+	private final ThreadFactory threadFactory;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param parallelism   the maximum number of scopes to close at the same time
+	 * @param timeout       the maximum amount of time to wait for the leaked scopes to close
+	 * @param threadFactory creates the threads that close the scopes
+	 */
+	private ForcedClose(int parallelism, Duration timeout, ThreadFactory threadFactory)
+	{
+		this.parallelism = parallelism;
+		this.timeout = timeout;
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Closes leaked child scopes.
+	 *
+	 * @param scopeToMetadata a map from each leaked child scope to its metadata
+	 * @param log             the logger to report leaks to
+	 * @param exceptions      the list to add any exceptions thrown by the child scopes to
+	 */
+	void close(Map<Scope, ChildScopeMetadata> scopeToMetadata, Logger log, List<Exception> exceptions)
+	{
+		MetricsCollector metrics = Metrics.getCollector();
+		if (threadFactory == null)
+		{
+			for (Entry<Scope, ChildScopeMetadata> entry : scopeToMetadata.entrySet())
+			{
+				try
+				{
+					Scope scope = entry.getKey();
+					ChildScopeMetadata metadata = entry.getValue();
+					log.warn("Leaked child scope {} {}", scope, metadata);
+					metrics.leakedChildClosed(scope);
+					scope.close();
+				}
+				catch (Exception e)
+				{
+					exceptions.add(e);
+				}
+			}
+			return;
+		}
+		List<Scope> scopes = new ArrayList<>(scopeToMetadata.size());
+		for (Entry<Scope, ChildScopeMetadata> entry : scopeToMetadata.entrySet())
+		{
+			Scope scope = entry.getKey();
+			log.warn("Leaked child scope {} {}", scope, entry.getValue());
+			metrics.leakedChildClosed(scope);
+			scopes.add(scope);
+		}
+		if (scopes.isEmpty())
+			return;
+		closeConcurrently(scopes, exceptions);
+	}
+
+	/**
+	 * Closes scopes concurrently.
+	 *
+	 * @param scopes     the scopes to close
+	 * @param exceptions the list to add any exceptions thrown by the scopes to
+	 */
+	private void closeConcurrently(List<Scope> scopes, List<Exception> exceptions)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, scopes.size()),
+			threadFactory);
+		List<Future<?>> futures = new ArrayList<>(scopes.size());
+		int remaining = 0;
+		try
+		{
+			for (Scope scope : scopes)
+				futures.add(executor.submit(scope::close));
+			executor.shutdown();
+			if (!executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS))
+			{
+				for (Future<?> future : futures)
+					if (!future.isDone())
+						++remaining;
+			}
+		}
+		catch (InterruptedException e)
+		{
+			// Interrupted while waiting for child scopes to close
+			exceptions.add(e);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		for (Future<?> future : futures)
+		{
+			if (!future.isDone())
+				continue;
+			try
+			{
+				future.get();
+			}
+			catch (ExecutionException e)
+			{
+				Throwable cause = e.getCause();
+				if (cause instanceof Exception)
+					exceptions.add((Exception) cause);
+				else
+					exceptions.add(e);
+			}
+			catch (InterruptedException | RuntimeException e)
+			{
+				exceptions.add(e);
+			}
+		}
+		if (remaining > 0)
+		{
+			exceptions.add(new TimeoutException(remaining + " out of " + scopes.size() +
+				" leaked child scopes did not close within " + timeout));
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		if (threadFactory == null)
+			return "serial";
+		return "parallel(parallelism: " + parallelism + ", timeout: " + timeout + ")";
+	}
+}
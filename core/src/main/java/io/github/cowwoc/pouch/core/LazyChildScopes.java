@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Manages child scopes, allocating a {@link ConcurrentChildScopes} the first time that a child is added.
+ * <p>
+ * Most scopes, such as transaction and request scopes, never have children. This class avoids allocating a
+ * child registry for them, and shuts down immediately if no child was ever added.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class LazyChildScopes implements ChildScopes
+{
+	private static final AtomicReferenceFieldUpdater<LazyChildScopes, ChildScopes> DELEGATE =
+		AtomicReferenceFieldUpdater.newUpdater(LazyChildScopes.class, ChildScopes.class, "delegate");
+	/**
+	 * The registry of scopes that were shut down before any children were added.
+	 */
+	private static final ChildScopes SHUT_DOWN = new ConcurrentChildScopes(LeakTracking.OFF);
+
+	static
+	{
+		SHUT_DOWN.shutdown(Duration.ZERO);
+	}
+
+	/**
+	 * Determines the information that is recorded about child scopes.
+	 */
+	private final LeakTracking leakTracking;
+	/**
+	 * The child registry; {@code null} if no child was added yet, or {@link #SHUT_DOWN} if the registry was
+	 * shut down before any children were added.
+	 */
+	private volatile ChildScopes delegate;
+
+	/**
+	 * Creates a new LazyChildScopes that uses {@link LeakTracking#getDefault() the default leak tracking}.
+	 */
+	public LazyChildScopes()
+	{
+		this(LeakTracking.getDefault());
+	}
+
+	/**
+	 * Creates a new LazyChildScopes.
+	 *
+	 * @param leakTracking determines the information that is recorded about child scopes, in order to report
+	 *                     leaks
+	 * @throws NullPointerException if {@code leakTracking} is null
+	 */
+	public LazyChildScopes(LeakTracking leakTracking)
+	{
+		if (leakTracking == null)
+			throw new NullPointerException("leakTracking may not be null");
+		this.leakTracking = leakTracking;
+	}
+
+	@Override
+	public void add(Scope child)
+	{
+		if (child == null)
+			throw new NullPointerException("child may not be null");
+		ChildScopes children = delegate;
+		if (children == null)
+		{
+			children = new ConcurrentChildScopes(leakTracking);
+			if (!DELEGATE.compareAndSet(this, null, children))
+			{
+				// Another thread allocated the registry or shut it down first
+				children = delegate;
+			}
+		}
+		children.add(child);
+	}
+
+	@Override
+	public boolean remove(Scope child)
+	{
+		if (child == null)
+			throw new NullPointerException("child may not be null");
+		ChildScopes children = delegate;
+		if (children == null)
+			return false;
+		return children.remove(child);
+	}
+
+	@Override
+	public int size()
+	{
+		ChildScopes children = delegate;
+		if (children == null)
+			return 0;
+		return children.size();
+	}
+
+	@Override
+	public boolean awaitEmpty(Duration timeout) throws InterruptedException
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		ChildScopes children = delegate;
+		if (children == null)
+			return true;
+		return children.awaitEmpty(timeout);
+	}
+
+	@Override
+	public boolean shutdown(Duration timeout, ForcedClose forcedClose)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		if (forcedClose == null)
+			throw new NullPointerException("forcedClose may not be null");
+		ChildScopes children = delegate;
+		if (children == null && DELEGATE.compareAndSet(this, null, SHUT_DOWN))
+		{
+			// No child was ever added
+			return true;
+		}
+		return delegate.shutdown(timeout, forcedClose);
+	}
+
+	@Override
+	public String toString()
+	{
+		ChildScopes children = delegate;
+		if (children == null)
+			return "LazyChildScopes[unallocated]";
+		if (children == SHUT_DOWN)
+			return "LazyChildScopes[shut down]";
+		return "LazyChildScopes[" + children + "]";
+	}
+}
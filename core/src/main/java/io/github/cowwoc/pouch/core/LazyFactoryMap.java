@@ -0,0 +1,661 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A thread-safe map of factories that create values on demand, one per key.
+ * <p>
+ * Each key's value is created at most once at a time: threads that request a value that is being created
+ * wait for it instead of creating it again. If the value cannot be created, the next request retries.
+ * <p>
+ * The map is bounded by the total weight of its values. When a new value pushes the total weight over the
+ * limit, the least recently used values are evicted and disposed. Under contention, some reads are not
+ * recorded, so eviction order approximates LRU.
+ * <p>
+ * Values returned by {@link #getValue(Object)} may be disposed as soon as they are evicted. Callers that
+ * use a value beyond that point should {@link #lease(Object) lease} it instead. A leased value that is
+ * evicted or invalidated is removed from the map right away, but is only disposed once its last lease is
+ * closed:
+ * <pre>
+ * {@code
+ * try (Factory<Connection> connection = tenantToConnection.lease(tenant))
+ * {
+ *   connection.getValue().prepareStatement(...);
+ * }
+ * }</pre>
+ * <p>
+ * The implementation is thread-safe.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public abstract class LazyFactoryMap<K, V> implements Closeable
+{
+	/**
+	 * Creates a new {@code LazyFactoryMap}.
+	 *
+	 * @param <K>         the type of the keys
+	 * @param <V>         the type of the values
+	 * @param supplier    implements {@link #createValue(Object) createValue(K)}
+	 * @param disposer    implements {@link #disposeValue(Object, Object) disposeValue(K, V)}
+	 * @param maximumSize the maximum number of values to retain
+	 * @return a new {@code LazyFactoryMap}
+	 * @throws IllegalArgumentException if {@code maximumSize} is zero or negative
+	 */
+	public static <K, V> LazyFactoryMap<K, V> create(Function<K, V> supplier, BiConsumer<K, V> disposer,
+		long maximumSize)
+	{
+		return new LazyFactoryMap<K, V>(maximumSize)
+		{
+			@Override
+			protected V createValue(K key)
+			{
+				return supplier.apply(key);
+			}
+
+			@Override
+			protected void disposeValue(K key, V value)
+			{
+				disposer.accept(key, value);
+			}
+		};
+	}
+
+	/**
+	 * Creates a new {@code LazyFactoryMap} that disposes its values by invoking {@code close()}. If
+	 * {@code close()} throws a checked exception, it is wrapped in a {@code RuntimeException} or an
+	 * exception that extends it.
+	 *
+	 * @param <K>         the type of the keys
+	 * @param <V>         the type of the values
+	 * @param supplier    implements {@link #createValue(Object) createValue(K)}
+	 * @param maximumSize the maximum number of values to retain
+	 * @return a new {@code LazyFactoryMap}
+	 * @throws IllegalArgumentException if {@code maximumSize} is zero or negative
+	 */
+	public static <K, V extends AutoCloseable> LazyFactoryMap<K, V> create(Function<K, V> supplier,
+		long maximumSize)
+	{
+		return create(supplier, (key, value) ->
+		{
+			try
+			{
+				value.close();
+			}
+			catch (Exception e)
+			{
+				throw WrappedCheckedException.wrap(e);
+			}
+		}, maximumSize);
+	}
+
+	private final long maximumWeight;
+	private final ConcurrentHashMap<K, Node<K, V>> keyToNode = new ConcurrentHashMap<>();
+	/**
+	 * Guards the access order and {@code totalWeight}.
+	 */
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	/**
+	 * The least recently used value that was created.
+	 */
+	private Node<K, V> head;
+	/**
+	 * The most recently used value that was created.
+	 */
+	private Node<K, V> tail;
+	/**
+	 * The total weight of the values that were created.
+	 */
+	private long totalWeight;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param maximumWeight the maximum total weight of the values to retain
+	 * @throws IllegalArgumentException if {@code maximumWeight} is zero or negative
+	 */
+	protected LazyFactoryMap(long maximumWeight)
+	{
+		if (maximumWeight <= 0)
+			throw new IllegalArgumentException("maximumWeight must be positive.\n" +
+				"Actual: " + maximumWeight);
+		this.maximumWeight = maximumWeight;
+	}
+
+	/**
+	 * Creates the value of a key. This method is invoked the first time {@link #getValue(Object)} is invoked
+	 * for the key, and again after the value is evicted.
+	 *
+	 * @param key the key
+	 * @return the value
+	 */
+	protected abstract V createValue(K key);
+
+	/**
+	 * Disposes the value of a key. This method is invoked when the value is evicted, invalidated or the map
+	 * is closed.
+	 *
+	 * @param key   the key
+	 * @param value the value to dispose
+	 */
+	protected abstract void disposeValue(K key, V value);
+
+	/**
+	 * Returns the weight of a value. By default, each value weighs {@code 1}.
+	 *
+	 * @param key   the key
+	 * @param value the value
+	 * @return the weight of the value
+	 */
+	protected long weigh(K key, V value)
+	{
+		return 1;
+	}
+
+	/**
+	 * Returns the value of a key, creating it if necessary.
+	 *
+	 * @param key the key
+	 * @return the value
+	 * @throws NullPointerException  if {@code key} is null
+	 * @throws IllegalStateException if the map is closed
+	 */
+	public final V getValue(K key)
+	{
+		if (key == null)
+			throw new NullPointerException("key may not be null");
+		return getNode(key, false).value;
+	}
+
+	/**
+	 * Returns a new lease on the value of a key. The lease looks up the value the first time that
+	 * {@link Factory#getValue()} is invoked, creating it if necessary. The value is not disposed until
+	 * {@link Factory#close()} is invoked, even if it is evicted or invalidated in the meantime.
+	 *
+	 * @param key the key
+	 * @return a new lease
+	 * @throws NullPointerException  if {@code key} is null
+	 * @throws IllegalStateException if the map is closed
+	 */
+	public final Factory<V> lease(K key)
+	{
+		if (key == null)
+			throw new NullPointerException("key may not be null");
+		ensureOpen();
+		return new Lease(key);
+	}
+
+	/**
+	 * Returns the node of a key, creating its value if necessary.
+	 *
+	 * @param key   the key
+	 * @param lease {@code true} to prevent the value from being disposed until {@link #release(Node)} is
+	 *              invoked
+	 * @return the node
+	 * @throws IllegalStateException if the map is closed
+	 */
+	private Node<K, V> getNode(K key, boolean lease)
+	{
+		while (true)
+		{
+			ensureOpen();
+			Node<K, V> node = keyToNode.computeIfAbsent(key, Node::new);
+			if (node.ready)
+			{
+				if (lease && !pin(node))
+				{
+					// The value was evicted or invalidated
+					continue;
+				}
+				recordAccess(node);
+				return node;
+			}
+			boolean created = false;
+			synchronized (node)
+			{
+				if (node.removed)
+				{
+					// The node was invalidated or its creation failed
+					continue;
+				}
+				if (!node.ready)
+				{
+					create(node);
+					created = true;
+				}
+				if (lease)
+					++node.leases;
+			}
+			if (created)
+				admit(node);
+			if (closed)
+			{
+				discard(node, lease);
+				throw new IllegalStateException("Map is closed");
+			}
+			if (keyToNode.get(key) != node)
+			{
+				// The value was invalidated or evicted while it was being created, so it may already be
+				// disposed. Create a new one.
+				discard(node, lease);
+				continue;
+			}
+			return node;
+		}
+	}
+
+	/**
+	 * Creates the value of a node. The caller must hold the node's lock.
+	 *
+	 * @param node the node
+	 */
+	private void create(Node<K, V> node)
+	{
+		V value;
+		try
+		{
+			value = createValue(node.key);
+		}
+		catch (RuntimeException | Error e)
+		{
+			node.removed = true;
+			keyToNode.remove(node.key, node);
+			throw e;
+		}
+		node.value = value;
+		node.weight = weigh(node.key, value);
+		node.ready = true;
+	}
+
+	/**
+	 * Prevents the value of a node from being disposed until {@link #release(Node)} is invoked.
+	 *
+	 * @param node the node
+	 * @return {@code false} if the node was already removed from the map
+	 */
+	private boolean pin(Node<K, V> node)
+	{
+		synchronized (node)
+		{
+			if (node.removed)
+				return false;
+			++node.leases;
+			return true;
+		}
+	}
+
+	/**
+	 * Releases a lease on the value of a node. If the node was removed from the map and this was its last
+	 * lease, the value is disposed.
+	 *
+	 * @param node the node
+	 */
+	private void release(Node<K, V> node)
+	{
+		synchronized (node)
+		{
+			--node.leases;
+			if (node.leases > 0 || !node.removed || !node.ready || node.disposed)
+				return;
+			node.disposed = true;
+		}
+		disposeValue(node.key, node.value);
+	}
+
+	/**
+	 * Disposes a node that was removed from the map while its value was being created.
+	 *
+	 * @param node  the node
+	 * @param lease {@code true} if the caller holds a lease on the node
+	 */
+	private void discard(Node<K, V> node, boolean lease)
+	{
+		dispose(node);
+		if (lease)
+			release(node);
+	}
+
+	/**
+	 * Adds a newly created value to the access order, evicting the least recently used values if the map is
+	 * too heavy.
+	 *
+	 * @param node the node of the value
+	 */
+	private void admit(Node<K, V> node)
+	{
+		List<Node<K, V>> evicted = new ArrayList<>();
+		evictionLock.lock();
+		try
+		{
+			// Skip values that were invalidated while they were being created
+			if (keyToNode.get(node.key) != node)
+				return;
+			link(node);
+			totalWeight += node.weight;
+			while (totalWeight > maximumWeight && head != node)
+			{
+				Node<K, V> victim = head;
+				unlink(victim);
+				totalWeight -= victim.weight;
+				evicted.add(victim);
+			}
+		}
+		finally
+		{
+			evictionLock.unlock();
+		}
+		for (Node<K, V> victim : evicted)
+		{
+			keyToNode.remove(victim.key, victim);
+			dispose(victim);
+		}
+	}
+
+	/**
+	 * Marks a value as the most recently used. Reads that contend for the lock are skipped instead of
+	 * blocking.
+	 *
+	 * @param node the node of the value
+	 */
+	private void recordAccess(Node<K, V> node)
+	{
+		if (!evictionLock.tryLock())
+			return;
+		try
+		{
+			if (node.linked && node != tail)
+			{
+				unlink(node);
+				link(node);
+			}
+		}
+		finally
+		{
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Appends a node to the end of the access order. The caller must hold {@code evictionLock}.
+	 *
+	 * @param node the node
+	 */
+	private void link(Node<K, V> node)
+	{
+		node.previous = tail;
+		node.next = null;
+		if (tail == null)
+			head = node;
+		else
+			tail.next = node;
+		tail = node;
+		node.linked = true;
+	}
+
+	/**
+	 * Removes a node from the access order. The caller must hold {@code evictionLock}.
+	 *
+	 * @param node the node
+	 */
+	private void unlink(Node<K, V> node)
+	{
+		if (node.previous == null)
+			head = node.next;
+		else
+			node.previous.next = node.next;
+		if (node.next == null)
+			tail = node.previous;
+		else
+			node.next.previous = node.previous;
+		node.previous = null;
+		node.next = null;
+		node.linked = false;
+	}
+
+	/**
+	 * Disposes the value of a node, unless it was already disposed. If the value is leased, it is disposed
+	 * once its last lease is released instead.
+	 *
+	 * @param node the node
+	 */
+	private void dispose(Node<K, V> node)
+	{
+		synchronized (node)
+		{
+			node.removed = true;
+			if (!node.ready || node.disposed || node.leases > 0)
+				return;
+			node.disposed = true;
+		}
+		disposeValue(node.key, node.value);
+	}
+
+	/**
+	 * Removes and disposes the value of a key. If the value is being created, this method waits for it.
+	 *
+	 * @param key the key
+	 * @throws NullPointerException if {@code key} is null
+	 */
+	public final void invalidate(K key)
+	{
+		if (key == null)
+			throw new NullPointerException("key may not be null");
+		Node<K, V> node = keyToNode.remove(key);
+		if (node == null)
+			return;
+		evictionLock.lock();
+		try
+		{
+			if (node.linked)
+			{
+				unlink(node);
+				totalWeight -= node.weight;
+			}
+		}
+		finally
+		{
+			evictionLock.unlock();
+		}
+		dispose(node);
+	}
+
+	/**
+	 * Returns the number of keys in the map, including values that are being created.
+	 *
+	 * @return the number of keys in the map
+	 */
+	public int size()
+	{
+		return keyToNode.size();
+	}
+
+	/**
+	 * Ensures that the map is open.
+	 *
+	 * @throws IllegalStateException if the map is closed
+	 */
+	private void ensureOpen()
+	{
+		if (closed)
+			throw new IllegalStateException("Map is closed");
+	}
+
+	/**
+	 * Disposes the map and its values. Subsequent invocations of this method have no effect. Invoking
+	 * {@link #getValue(Object)} after this method results in {@code IllegalStateException} being thrown.
+	 * <p>
+	 * This method waits for values that are being created, and then disposes them. Leased values are
+	 * disposed when their last lease is closed.
+	 *
+	 * @throws WrappedCheckedException if any of the values threw a checked exception while being disposed
+	 */
+	@Override
+	public final void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		List<Exception> exceptions = new ArrayList<>();
+		for (K key : keyToNode.keySet())
+		{
+			try
+			{
+				invalidate(key);
+			}
+			catch (Exception e)
+			{
+				exceptions.add(e);
+			}
+		}
+		if (!exceptions.isEmpty())
+		{
+			Exception mainException = exceptions.get(0);
+			for (int i = 1, size = exceptions.size(); i < size; ++i)
+				mainException.addSuppressed(exceptions.get(i));
+			throw WrappedCheckedException.wrap(mainException);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "LazyFactoryMap\n" +
+			"{\n" +
+			"  size: " + keyToNode.size() + ",\n" +
+			"  maximumWeight: " + maximumWeight + ",\n" +
+			"  closed: " + closed + "\n" +
+			"}";
+	}
+
+	/**
+	 * Looks up the value of a key on demand and prevents it from being disposed until the lease is closed.
+	 */
+	private final class Lease implements Factory<V>
+	{
+		private final K key;
+		/**
+		 * The node of the leased value, or {@code null} if the value was not looked up yet. Guarded by
+		 * {@code this}.
+		 */
+		private Node<K, V> node;
+		/**
+		 * {@code true} if the lease was closed. Guarded by {@code this}.
+		 */
+		private boolean leaseClosed;
+
+		/**
+		 * Creates a new lease.
+		 *
+		 * @param key the key
+		 */
+		Lease(K key)
+		{
+			this.key = key;
+		}
+
+		@Override
+		public synchronized V getValue()
+		{
+			if (leaseClosed)
+				throw new IllegalStateException("Lease is closed");
+			if (node == null)
+				node = getNode(key, true);
+			return node.value;
+		}
+
+		@Override
+		public synchronized boolean isInitialized()
+		{
+			return node != null;
+		}
+
+		@Override
+		public void close()
+		{
+			Node<K, V> leasedNode;
+			synchronized (this)
+			{
+				if (leaseClosed)
+					return;
+				leaseClosed = true;
+				leasedNode = node;
+				node = null;
+			}
+			if (leasedNode != null)
+				release(leasedNode);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Lease\n" +
+				"{\n" +
+				"  key: " + key + ",\n" +
+				"  closed: " + leaseClosed + "\n" +
+				"}";
+		}
+	}
+
+	/**
+	 * The value of a key.
+	 *
+	 * @param <K> the type of the key
+	 * @param <V> the type of the value
+	 */
+	private static final class Node<K, V>
+	{
+		final K key;
+		/**
+		 * The value. This variable uses <a href="http://stackoverflow.com/a/6169551/14731">piggybacking
+		 * synchronization</a> on {@code ready}.
+		 */
+		V value;
+		/**
+		 * The weight of the value. This variable uses piggybacking synchronization on {@code ready}.
+		 */
+		long weight;
+		/**
+		 * {@code true} if the value was created.
+		 */
+		volatile boolean ready;
+		/**
+		 * {@code true} if the node was removed from the map. Guarded by the node's lock.
+		 */
+		boolean removed;
+		/**
+		 * {@code true} if the value was disposed. Guarded by the node's lock.
+		 */
+		boolean disposed;
+		/**
+		 * The number of leases that prevent the value from being disposed. Guarded by the node's lock.
+		 */
+		int leases;
+		/**
+		 * {@code true} if the node is part of the access order. Guarded by {@code evictionLock}.
+		 */
+		boolean linked;
+		Node<K, V> previous;
+		Node<K, V> next;
+
+		/**
+		 * Creates a new node.
+		 *
+		 * @param key the key
+		 */
+		Node(K key)
+		{
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Determines how much information is recorded about the creation of child scopes, in order to report
+ * child scopes that are leaked when their parent shuts down.
+ * <p>
+ * The implementation is thread-safe.
+ */
+public final class LeakTracking
+{
+	/**
+	 * The sample rate of {@link #getDefault()}.
+	 */
+	private static final int DEFAULT_SAMPLE_RATE = 100;
+	/**
+	 * Does not record any information about child scopes.
+	 */
+	public static final LeakTracking OFF = new LeakTracking(Mode.OFF, 0);
+	/**
+	 * Records the thread, time and stack trace that created every child scope.
+	 */
+	public static final LeakTracking FULL = new LeakTracking(Mode.FULL, 1);
+	private static final LeakTracking DEFAULT = new LeakTracking(Mode.SAMPLED, DEFAULT_SAMPLE_RATE);
+
+	/**
+	 * Records the thread and time that created each child scope, and the stack trace of a random sample of
+	 * them.
+	 *
+	 * @param sampleRate captures the stack trace of one out of every {@code sampleRate} child scopes, on
+	 *                   average
+	 * @return a leak tracking configuration
+	 * @throws IllegalArgumentException if {@code sampleRate} is less than 1
+	 */
+	public static LeakTracking sampled(int sampleRate)
+	{
+		if (sampleRate < 1)
+			throw new IllegalArgumentException("sampleRate must be positive.\n" +
+				"Actual: " + sampleRate);
+		if (sampleRate == 1)
+			return FULL;
+		return new LeakTracking(Mode.SAMPLED, sampleRate);
+	}
+
+	/**
+	 * Returns the default configuration, which records the thread and time that created each child scope and
+	 * the stack trace of one out of every 100 child scopes.
+	 *
+	 * @return the default configuration
+	 */
+	public static LeakTracking getDefault()
+	{
+		return DEFAULT;
+	}
+
+	private final Mode mode;
+	private final int sampleRate;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param mode       the type of information to record
+	 * @param sampleRate captures the stack trace of one out of every {@code sampleRate} child scopes
+	 */
+	private LeakTracking(Mode mode, int sampleRate)
+	{
+		this.mode = mode;
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Returns the type of information that is recorded.
+	 *
+	 * @return the type of information that is recorded
+	 */
+	public Mode getMode()
+	{
+		return mode;
+	}
+
+	/**
+	 * Returns the rate at which stack traces are captured.
+	 *
+	 * @return one out of every {@code sampleRate} child scopes has its stack trace captured; {@code 0} if
+	 * 	stack traces are never captured
+	 */
+	public int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	/**
+	 * Indicates if the stack trace of the next child scope should be captured.
+	 *
+	 * @return {@code true} if the stack trace should be captured
+	 */
+	boolean shouldCaptureStackTrace()
+	{
+		switch (mode)
+		{
+			case OFF:
+				return false;
+			case FULL:
+				return true;
+			default:
+				return ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		if (mode == Mode.SAMPLED)
+			return "SAMPLED(1 in " + sampleRate + ")";
+		return mode.name();
+	}
+
+	/**
+	 * The type of information that is recorded about child scopes.
+	 */
+	public enum Mode
+	{
+		/**
+		 * Records nothing.
+		 */
+		OFF,
+		/**
+		 * Records the creating thread and time of every child scope, and the stack trace of some of them.
+		 */
+		SAMPLED,
+		/**
+		 * Records the creating thread, time and stack trace of every child scope.
+		 */
+		FULL
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+/**
+ * Holds the {@link MetricsCollector} that scopes and references report to.
+ * <p>
+ * By default, measurements are discarded without allocating any memory.
+ */
+public final class Metrics
+{
+	private static volatile MetricsCollector collector = MetricsCollector.NO_OP;
+
+	/**
+	 * Prevent construction.
+	 */
+	private Metrics()
+	{
+	}
+
+	/**
+	 * Returns the collector that measurements are reported to.
+	 *
+	 * @return {@link MetricsCollector#NO_OP} if metrics are disabled
+	 */
+	public static MetricsCollector getCollector()
+	{
+		return collector;
+	}
+
+	/**
+	 * Sets the collector that measurements are reported to.
+	 *
+	 * @param collector {@link MetricsCollector#NO_OP} to disable metrics
+	 * @throws NullPointerException if {@code collector} is null
+	 */
+	public static void setCollector(MetricsCollector collector)
+	{
+		if (collector == null)
+			throw new NullPointerException("collector may not be null");
+		Metrics.collector = collector;
+	}
+}
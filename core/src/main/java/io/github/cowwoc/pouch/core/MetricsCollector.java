@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+/**
+ * Receives measurements about scopes and the values they create.
+ * <p>
+ * Methods are invoked on the thread that performs the measured operation, so they should return quickly.
+ * By default, methods do nothing.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @see Metrics#setCollector(MetricsCollector)
+ */
+public interface MetricsCollector
+{
+	/**
+	 * A collector that ignores all measurements.
+	 */
+	MetricsCollector NO_OP = new MetricsCollector()
+	{
+	};
+
+	/**
+	 * Invoked after a child scope is added to a parent.
+	 *
+	 * @param parent the parent scope
+	 * @param child  the child scope
+	 */
+	default void childAdded(Scope parent, Scope child)
+	{
+	}
+
+	/**
+	 * Invoked after a child scope is removed from a parent.
+	 *
+	 * @param parent the parent scope
+	 * @param child  the child scope
+	 */
+	default void childRemoved(Scope parent, Scope child)
+	{
+	}
+
+	/**
+	 * Invoked before a parent scope forcibly closes a child scope that did not close in time.
+	 *
+	 * @param child the child scope
+	 */
+	default void leakedChildClosed(Scope child)
+	{
+	}
+
+	/**
+	 * Invoked after a reference creates its value.
+	 *
+	 * @param reference the reference, identified by {@link Reference#getMetricsName()}
+	 * @param nanos     the number of nanoseconds that it took to create the value
+	 */
+	default void valueCreated(Reference<?> reference, long nanos)
+	{
+	}
+
+	/**
+	 * Invoked after a reference fails to create its value.
+	 *
+	 * @param reference the reference, identified by {@link Reference#getMetricsName()}
+	 * @param nanos     the number of nanoseconds that passed before the failure
+	 */
+	default void valueCreationFailed(Reference<?> reference, long nanos)
+	{
+	}
+
+	/**
+	 * Invoked after a caller starts waiting for permission to run an operation.
+	 *
+	 * @param bulkhead   the bulkhead
+	 * @param queueDepth the number of callers that are waiting, including this one
+	 */
+	default void queued(Bulkhead bulkhead, int queueDepth)
+	{
+	}
+
+	/**
+	 * Invoked after a caller is granted permission to run an operation.
+	 *
+	 * @param bulkhead the bulkhead
+	 * @param nanos    the number of nanoseconds that the caller waited
+	 */
+	default void admitted(Bulkhead bulkhead, long nanos)
+	{
+	}
+
+	/**
+	 * Invoked after a caller is refused permission to run an operation, because the queue was full or the
+	 * caller timed out.
+	 *
+	 * @param bulkhead the bulkhead
+	 * @param nanos    the number of nanoseconds that the caller waited
+	 */
+	default void rejected(Bulkhead bulkhead, long nanos)
+	{
+	}
+}
@@ -0,0 +1,560 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@code ScheduledExecutorService} whose timer thread only fires triggers. The body of each task runs on a
+ * separate thread, so slow or blocking tasks do not delay other tasks.
+ * <p>
+ * On JDK 21 or newer, use {@code Thread.ofVirtual().factory()} to run tasks on virtual threads.
+ * <p>
+ * Unlike {@code ScheduledThreadPoolExecutor}, different tasks may run concurrently. Executions of the same
+ * periodic task never overlap: a fixed-rate task whose body runs late starts its next execution as soon as
+ * the previous one completes.
+ * <p>
+ * The futures returned by this class implement {@link ScheduledTask}, which reports how late and how long
+ * each task ran.
+ * <p>
+ * The implementation is thread-safe.
+ */
+public final class OffloadingScheduler extends AbstractExecutorService
+	implements ScheduledExecutorService
+{
+	/**
+	 * Fires the triggers.
+	 */
+	private final ScheduledThreadPoolExecutor timer;
+	/**
+	 * Runs the task bodies.
+	 */
+	private final ThreadPoolExecutor workers;
+	/**
+	 * The tasks that have not completed.
+	 */
+	private final Set<Task<?>> tasks = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Creates a new scheduler.
+	 *
+	 * @param timerThreadFactory  creates the thread that fires the triggers
+	 * @param workerThreadFactory creates the threads that run the tasks
+	 * @throws NullPointerException if any of the arguments are null
+	 */
+	public OffloadingScheduler(ThreadFactory timerThreadFactory, ThreadFactory workerThreadFactory)
+	{
+		if (timerThreadFactory == null)
+			throw new NullPointerException("timerThreadFactory may not be null");
+		if (workerThreadFactory == null)
+			throw new NullPointerException("workerThreadFactory may not be null");
+		// Idle workers are discarded immediately, creating one thread per execution. This is optimal for
+		// virtual threads, and platform threads are only created when a task fires.
+		this.workers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.NANOSECONDS,
+			new SynchronousQueue<>(), workerThreadFactory);
+		this.timer = new ScheduledThreadPoolExecutor(1, timerThreadFactory)
+		{
+			@Override
+			protected void terminated()
+			{
+				// Triggers that fire after shutdown() still need the workers
+				workers.shutdown();
+			}
+		};
+		timer.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Returns the tasks that have not completed yet.
+	 *
+	 * @return the tasks that have not completed yet
+	 */
+	public Collection<ScheduledTask<?>> getTasks()
+	{
+		return new ArrayList<>(tasks);
+	}
+
+	@Override
+	public ScheduledTask<?> schedule(Runnable command, long delay, TimeUnit unit)
+	{
+		if (command == null)
+			throw new NullPointerException("command may not be null");
+		return schedule(Executors.callable(command), delay, unit);
+	}
+
+	@Override
+	public <V> ScheduledTask<V> schedule(Callable<V> callable, long delay, TimeUnit unit)
+	{
+		if (callable == null)
+			throw new NullPointerException("callable may not be null");
+		if (unit == null)
+			throw new NullPointerException("unit may not be null");
+		Task<V> task = new Task<>(callable, 0, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+		return start(task);
+	}
+
+	@Override
+	public ScheduledTask<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+		TimeUnit unit)
+	{
+		if (command == null)
+			throw new NullPointerException("command may not be null");
+		if (unit == null)
+			throw new NullPointerException("unit may not be null");
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be positive.\n" +
+				"Actual: " + period);
+		Task<Object> task = new Task<>(Executors.callable(command), unit.toNanos(period),
+			System.nanoTime() + unit.toNanos(Math.max(0, initialDelay)));
+		return start(task);
+	}
+
+	@Override
+	public ScheduledTask<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+		TimeUnit unit)
+	{
+		if (command == null)
+			throw new NullPointerException("command may not be null");
+		if (unit == null)
+			throw new NullPointerException("unit may not be null");
+		if (delay <= 0)
+			throw new IllegalArgumentException("delay must be positive.\n" +
+				"Actual: " + delay);
+		Task<Object> task = new Task<>(Executors.callable(command), -unit.toNanos(delay),
+			System.nanoTime() + unit.toNanos(Math.max(0, initialDelay)));
+		return start(task);
+	}
+
+	/**
+	 * Schedules the first execution of a task.
+	 *
+	 * @param <V>  the type of value returned by the task
+	 * @param task the task
+	 * @return {@code task}
+	 * @throws RejectedExecutionException if the scheduler is shut down
+	 */
+	private <V> Task<V> start(Task<V> task)
+	{
+		tasks.add(task);
+		try
+		{
+			task.arm();
+		}
+		catch (RejectedExecutionException e)
+		{
+			tasks.remove(task);
+			throw e;
+		}
+		return task;
+	}
+
+	@Override
+	public void execute(Runnable command)
+	{
+		schedule(command, 0, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void shutdown()
+	{
+		// Match ScheduledThreadPoolExecutor: delayed tasks run after shutdown, periodic tasks do not
+		for (Task<?> task : tasks)
+			if (task.isPeriodic())
+				task.cancel(false);
+		timer.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow()
+	{
+		timer.shutdownNow();
+		workers.shutdownNow();
+		List<Runnable> result = new ArrayList<>();
+		for (Task<?> task : tasks)
+		{
+			if (task.getExecutionCount() == 0)
+				result.add(task);
+			task.cancel(false);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isShutdown()
+	{
+		return timer.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated()
+	{
+		return timer.isTerminated() && workers.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		if (!timer.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+			return false;
+		return workers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "OffloadingScheduler\n" +
+			"{\n" +
+			"  tasks: " + tasks.size() + ",\n" +
+			"  running: " + workers.getActiveCount() + ",\n" +
+			"  shutdown: " + isShutdown() + "\n" +
+			"}";
+	}
+
+	/**
+	 * A scheduled task and statistics about its executions.
+	 *
+	 * @param <V> the type of value returned by the task
+	 */
+	public interface ScheduledTask<V> extends ScheduledFuture<V>
+	{
+		/**
+		 * Returns the number of times that the task started running.
+		 *
+		 * @return the number of times that the task started running
+		 */
+		long getExecutionCount();
+
+		/**
+		 * Returns the amount of time between the last scheduled execution time and the time that the task
+		 * actually started running.
+		 *
+		 * @return {@code Duration.ZERO} if the task never ran
+		 */
+		Duration getLastLateness();
+
+		/**
+		 * Returns the maximum amount of time between a scheduled execution time and the time that the task
+		 * actually started running.
+		 *
+		 * @return {@code Duration.ZERO} if the task never ran
+		 */
+		Duration getMaxLateness();
+
+		/**
+		 * Returns the amount of time that the last completed execution took.
+		 *
+		 * @return {@code Duration.ZERO} if no execution completed
+		 */
+		Duration getLastRunTime();
+
+		/**
+		 * Returns the amount of time that the longest execution took.
+		 *
+		 * @return {@code Duration.ZERO} if no execution completed
+		 */
+		Duration getMaxRunTime();
+
+		/**
+		 * Returns the amount of time that all completed executions took.
+		 *
+		 * @return {@code Duration.ZERO} if no execution completed
+		 */
+		Duration getTotalRunTime();
+	}
+
+	/**
+	 * A task that is triggered by the timer thread and runs on a worker thread.
+	 *
+	 * @param <V> the type of value returned by the task
+	 */
+	private final class Task<V> implements ScheduledTask<V>, RunnableScheduledFuture<V>
+	{
+		private final Callable<V> callable;
+		/**
+		 * {@code 0} for one-shot tasks, a positive value for fixed-rate tasks and a negative value for
+		 * fixed-delay tasks, in nanoseconds.
+		 */
+		private final long period;
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+		/**
+		 * The time that the next execution should start, relative to {@code System.nanoTime()}.
+		 */
+		private volatile long scheduledTime;
+		/**
+		 * The trigger of the next execution. Guarded by {@code this}.
+		 */
+		private ScheduledFuture<?> trigger;
+		/**
+		 * The thread that is running the task, or {@code null} if the task is not running.
+		 */
+		private volatile Thread runner;
+		// Executions of the same task never overlap, so the statistics are only updated by one thread at a
+		// time
+		private volatile long executionCount;
+		private volatile long lastLateness;
+		private volatile long maxLateness;
+		private volatile long lastRunTime;
+		private volatile long maxRunTime;
+		private volatile long totalRunTime;
+
+		/**
+		 * Creates a new task.
+		 *
+		 * @param callable      the task body
+		 * @param period        {@code 0} for one-shot tasks, a positive value for fixed-rate tasks and a
+		 *                      negative value for fixed-delay tasks, in nanoseconds
+		 * @param scheduledTime the time that the first execution should start, relative to
+		 *                      {@code System.nanoTime()}
+		 */
+		Task(Callable<V> callable, long period, long scheduledTime)
+		{
+			this.callable = callable;
+			this.period = period;
+			this.scheduledTime = scheduledTime;
+		}
+
+		/**
+		 * Schedules the next trigger.
+		 *
+		 * @throws RejectedExecutionException if the scheduler is shut down
+		 */
+		void arm()
+		{
+			synchronized (this)
+			{
+				if (result.isDone())
+					return;
+				trigger = timer.schedule(this::fire, scheduledTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+			}
+		}
+
+		/**
+		 * Invoked by the timer thread when the task should run.
+		 */
+		private void fire()
+		{
+			if (result.isDone())
+				return;
+			try
+			{
+				workers.execute(this);
+			}
+			catch (RejectedExecutionException e)
+			{
+				complete(null, e);
+			}
+		}
+
+		@Override
+		public void run()
+		{
+			if (result.isDone())
+				return;
+			long start = System.nanoTime();
+			long lateness = Math.max(0, start - scheduledTime);
+			lastLateness = lateness;
+			if (lateness > maxLateness)
+				maxLateness = lateness;
+			++executionCount;
+			runner = Thread.currentThread();
+			V value;
+			try
+			{
+				value = callable.call();
+			}
+			catch (Throwable t)
+			{
+				runner = null;
+				recordRunTime(start);
+				complete(null, t);
+				return;
+			}
+			runner = null;
+			recordRunTime(start);
+			if (period == 0)
+			{
+				complete(value, null);
+				return;
+			}
+			if (period > 0)
+				scheduledTime += period;
+			else
+				scheduledTime = System.nanoTime() - period;
+			try
+			{
+				arm();
+			}
+			catch (RejectedExecutionException unused)
+			{
+				// Periodic tasks stop running when the scheduler shuts down
+				cancel(false);
+			}
+		}
+
+		/**
+		 * Records the duration of an execution.
+		 *
+		 * @param start the time that the execution started, relative to {@code System.nanoTime()}
+		 */
+		private void recordRunTime(long start)
+		{
+			long runTime = System.nanoTime() - start;
+			lastRunTime = runTime;
+			if (runTime > maxRunTime)
+				maxRunTime = runTime;
+			totalRunTime += runTime;
+		}
+
+		/**
+		 * Completes the task.
+		 *
+		 * @param value     the value returned by the task
+		 * @param throwable the exception thrown by the task, or {@code null} if it completed normally
+		 */
+		private void complete(V value, Throwable throwable)
+		{
+			if (throwable == null)
+				result.complete(value);
+			else
+				result.completeExceptionally(throwable);
+			tasks.remove(this);
+		}
+
+		@Override
+		public boolean isPeriodic()
+		{
+			return period != 0;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			boolean cancelled = result.cancel(false);
+			synchronized (this)
+			{
+				if (trigger != null)
+					trigger.cancel(false);
+			}
+			if (cancelled && mayInterruptIfRunning)
+			{
+				Thread thread = runner;
+				if (thread != null)
+					thread.interrupt();
+			}
+			tasks.remove(this);
+			return cancelled;
+		}
+
+		@Override
+		public boolean isCancelled()
+		{
+			return result.isCancelled();
+		}
+
+		@Override
+		public boolean isDone()
+		{
+			return result.isDone();
+		}
+
+		@Override
+		public V get() throws InterruptedException, ExecutionException
+		{
+			return result.get();
+		}
+
+		@Override
+		public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+			TimeoutException
+		{
+			return result.get(timeout, unit);
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit)
+		{
+			return unit.convert(scheduledTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other)
+		{
+			if (other == this)
+				return 0;
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public long getExecutionCount()
+		{
+			return executionCount;
+		}
+
+		@Override
+		public Duration getLastLateness()
+		{
+			return Duration.ofNanos(lastLateness);
+		}
+
+		@Override
+		public Duration getMaxLateness()
+		{
+			return Duration.ofNanos(maxLateness);
+		}
+
+		@Override
+		public Duration getLastRunTime()
+		{
+			return Duration.ofNanos(lastRunTime);
+		}
+
+		@Override
+		public Duration getMaxRunTime()
+		{
+			return Duration.ofNanos(maxRunTime);
+		}
+
+		@Override
+		public Duration getTotalRunTime()
+		{
+			return Duration.ofNanos(totalRunTime);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Task\n" +
+				"{\n" +
+				"  task: " + callable + ",\n" +
+				"  executions: " + executionCount + ",\n" +
+				"  maxLateness: " + getMaxLateness() + ",\n" +
+				"  maxRunTime: " + getMaxRunTime() + ",\n" +
+				"  done: " + isDone() + "\n" +
+				"}";
+		}
+	}
+}
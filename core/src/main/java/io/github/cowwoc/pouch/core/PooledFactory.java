@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe pool of reusable values.
+ * <p>
+ * Values are borrowed through {@link #lease() leases}. A scope typically creates a lease when it is
+ * constructed and closes it when the scope closes, which returns the value to the pool:
+ * <pre>
+ * {@code
+ * private final Factory<Connection> connection = pool.lease();
+ *
+ * public void close()
+ * {
+ *   Scopes.runAll(connection::close, () -> parent.removeChild(this));
+ * }
+ * }</pre>
+ * <p>
+ * At most {@code maximumSize} values are leased at the same time. Idle values are validated periodically
+ * on a scheduler, and values that are no longer valid are disposed.
+ * <p>
+ * The implementation is thread-safe.
+ *
+ * @param <T> the type of the values
+ */
+public abstract class PooledFactory<T> implements Closeable
+{
+	/**
+	 * Creates a new {@code PooledFactory}.
+	 *
+	 * @param <T>                the type of the values
+	 * @param supplier           implements {@link #createValue()}
+	 * @param disposer           implements {@link #disposeValue(Object) disposeValue(T)}
+	 * @param validator          implements {@link #isValid(Object) isValid(T)}
+	 * @param resetter           implements {@link #resetValue(Object) resetValue(T)}
+	 * @param maximumSize        the maximum number of values that may be leased at the same time
+	 * @param acquireTimeout     the maximum amount of time to wait for a value to become available
+	 * @param scheduler          the scheduler that validates idle values
+	 * @param validationInterval the amount of time between validations of idle values
+	 * @return a new {@code PooledFactory}
+	 * @throws NullPointerException     if {@code acquireTimeout}, {@code scheduler} or
+	 *                                  {@code validationInterval} are null
+	 * @throws IllegalArgumentException if {@code maximumSize}, {@code acquireTimeout} or
+	 *                                  {@code validationInterval} are zero or negative
+	 */
+	public static <T> PooledFactory<T> create(Supplier<T> supplier, Consumer<T> disposer,
+		Predicate<T> validator, Consumer<T> resetter, int maximumSize, Duration acquireTimeout,
+		ScheduledExecutorService scheduler, Duration validationInterval)
+	{
+		return new PooledFactory<T>(maximumSize, acquireTimeout, scheduler, validationInterval)
+		{
+			@Override
+			protected T createValue()
+			{
+				return supplier.get();
+			}
+
+			@Override
+			protected void disposeValue(T value)
+			{
+				disposer.accept(value);
+			}
+
+			@Override
+			protected boolean isValid(T value)
+			{
+				return validator.test(value);
+			}
+
+			@Override
+			protected void resetValue(T value)
+			{
+				resetter.accept(value);
+			}
+		};
+	}
+
+	private final int maximumSize;
+	private final long acquireTimeout;
+	/**
+	 * The number of values that may be leased without waiting.
+	 */
+	private final Semaphore available;
+	/**
+	 * Values that are not leased. The most recently returned value is at the front.
+	 */
+	private final ConcurrentLinkedDeque<T> idle = new ConcurrentLinkedDeque<>();
+	private final ScheduledFuture<?> validation;
+	private volatile boolean closed;
+	private final Logger log = LoggerFactory.getLogger(PooledFactory.class);
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param maximumSize        the maximum number of values that may be leased at the same time
+	 * @param acquireTimeout     the maximum amount of time to wait for a value to become available
+	 * @param scheduler          the scheduler that validates idle values
+	 * @param validationInterval the amount of time between validations of idle values
+	 * @throws NullPointerException     if {@code acquireTimeout}, {@code scheduler} or
+	 *                                  {@code validationInterval} are null
+	 * @throws IllegalArgumentException if {@code maximumSize}, {@code acquireTimeout} or
+	 *                                  {@code validationInterval} are zero or negative
+	 */
+	protected PooledFactory(int maximumSize, Duration acquireTimeout, ScheduledExecutorService scheduler,
+		Duration validationInterval)
+	{
+		if (acquireTimeout == null)
+			throw new NullPointerException("acquireTimeout may not be null");
+		if (scheduler == null)
+			throw new NullPointerException("scheduler may not be null");
+		if (validationInterval == null)
+			throw new NullPointerException("validationInterval may not be null");
+		if (maximumSize <= 0)
+			throw new IllegalArgumentException("maximumSize must be positive.\n" +
+				"Actual: " + maximumSize);
+		if (acquireTimeout.isNegative() || acquireTimeout.isZero())
+			throw new IllegalArgumentException("acquireTimeout must be positive.\n" +
+				"Actual: " + acquireTimeout);
+		if (validationInterval.isNegative() || validationInterval.isZero())
+			throw new IllegalArgumentException("validationInterval must be positive.\n" +
+				"Actual: " + validationInterval);
+		this.maximumSize = maximumSize;
+		this.acquireTimeout = acquireTimeout.toNanos();
+		this.available = new Semaphore(maximumSize);
+		long interval = validationInterval.toNanos();
+		this.validation = scheduler.scheduleWithFixedDelay(this::validateIdleValues, interval, interval,
+			TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Creates a value. This method is invoked when a value is leased and no idle values are available.
+	 *
+	 * @return the value
+	 */
+	protected abstract T createValue();
+
+	/**
+	 * Disposes a value.
+	 * <p>
+	 * This method is invoked when a value fails validation, when a value is returned after the pool was
+	 * closed, or when the pool is closed.
+	 *
+	 * @param value the value to dispose
+	 */
+	protected abstract void disposeValue(T value);
+
+	/**
+	 * Indicates if an idle value may still be used. This method is invoked periodically on the scheduler.
+	 * By default, all values are valid.
+	 *
+	 * @param value the value
+	 * @return {@code true} if the value may still be used
+	 */
+	protected boolean isValid(T value)
+	{
+		return true;
+	}
+
+	/**
+	 * Restores the state of a value before it is handed to the next lease, such as the settings of a database
+	 * connection. This method is invoked when a value is returned to the pool. If it throws an exception, the
+	 * value is disposed. By default, values are returned as-is.
+	 *
+	 * @param value the value
+	 */
+	protected void resetValue(T value)
+	{
+	}
+
+	/**
+	 * Returns a new lease. The lease borrows a value from the pool the first time that
+	 * {@link Factory#getValue()} is invoked, and returns it to the pool when {@link Factory#close()} is
+	 * invoked.
+	 *
+	 * @return a new lease
+	 * @throws IllegalStateException if the pool is closed
+	 */
+	public Factory<T> lease()
+	{
+		ensureOpen();
+		return new Lease();
+	}
+
+	/**
+	 * Borrows a value from the pool.
+	 *
+	 * @return the value
+	 * @throws IllegalStateException   if the pool is closed
+	 * @throws WrappedCheckedException if the thread was interrupted or no value became available in time
+	 */
+	private T borrow()
+	{
+		ensureOpen();
+		try
+		{
+			if (!available.tryAcquire(acquireTimeout, TimeUnit.NANOSECONDS))
+			{
+				throw WrappedCheckedException.wrap(new TimeoutException("No value became available within " +
+					Duration.ofNanos(acquireTimeout) + ". All " + maximumSize + " values are leased."));
+			}
+		}
+		catch (InterruptedException e)
+		{
+			throw WrappedCheckedException.wrap(e);
+		}
+		T value = idle.pollFirst();
+		if (value != null)
+			return value;
+		try
+		{
+			return createValue();
+		}
+		catch (RuntimeException | Error e)
+		{
+			available.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a value to the pool.
+	 *
+	 * @param value the value
+	 */
+	private void giveBack(T value)
+	{
+		// The value must be idle before its permit is released. Otherwise, a borrower could acquire the permit,
+		// find no idle values and create a value beyond the maximum size of the pool.
+		try
+		{
+			if (closed)
+			{
+				disposeValue(value);
+				return;
+			}
+			try
+			{
+				resetValue(value);
+			}
+			catch (RuntimeException e)
+			{
+				log.warn("Failed to reset {}", value, e);
+				dispose(value);
+				return;
+			}
+			idle.offerFirst(value);
+			// close() may have drained the idle values before this value was added
+			if (closed && idle.removeFirstOccurrence(value))
+				disposeValue(value);
+		}
+		finally
+		{
+			available.release();
+		}
+	}
+
+	/**
+	 * Disposes idle values that are no longer valid.
+	 */
+	private void validateIdleValues()
+	{
+		List<T> snapshot = new ArrayList<>(idle);
+		for (T value : snapshot)
+		{
+			// Holding a permit while the value is out of the idle list prevents borrowers from creating a
+			// replacement in the meantime. If all permits are taken, the idle values are about to be leased.
+			if (!available.tryAcquire())
+				return;
+			try
+			{
+				// Skip values that were leased since the snapshot was taken
+				if (!idle.removeFirstOccurrence(value))
+					continue;
+				boolean valid;
+				try
+				{
+					valid = isValid(value);
+				}
+				catch (RuntimeException e)
+				{
+					log.warn("Failed to validate {}", value, e);
+					valid = false;
+				}
+				if (valid && !closed)
+					idle.offerLast(value);
+				else
+					dispose(value);
+			}
+			finally
+			{
+				available.release();
+			}
+		}
+	}
+
+	/**
+	 * Disposes a value, logging any exceptions that it throws.
+	 *
+	 * @param value the value
+	 */
+	private void dispose(T value)
+	{
+		try
+		{
+			disposeValue(value);
+		}
+		catch (RuntimeException e)
+		{
+			log.warn("Failed to dispose {}", value, e);
+		}
+	}
+
+	/**
+	 * Returns the number of values that are not leased.
+	 *
+	 * @return the number of values that are not leased
+	 */
+	public int getIdleCount()
+	{
+		return idle.size();
+	}
+
+	/**
+	 * Returns the number of values that are leased.
+	 *
+	 * @return the number of values that are leased
+	 */
+	public int getLeasedCount()
+	{
+		return maximumSize - available.availablePermits();
+	}
+
+	/**
+	 * Ensures that the pool is open.
+	 *
+	 * @throws IllegalStateException if the pool is closed
+	 */
+	private void ensureOpen()
+	{
+		if (closed)
+			throw new IllegalStateException("Pool is closed");
+	}
+
+	/**
+	 * Disposes the idle values and stops validating them. Leased values are disposed when they are
+	 * returned. Subsequent invocations of this method have no effect.
+	 *
+	 * @throws WrappedCheckedException if any of the values threw a checked exception while being disposed
+	 */
+	@Override
+	public void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		validation.cancel(false);
+		List<Exception> exceptions = new ArrayList<>();
+		while (true)
+		{
+			T value = idle.pollFirst();
+			if (value == null)
+				break;
+			try
+			{
+				disposeValue(value);
+			}
+			catch (Exception e)
+			{
+				exceptions.add(e);
+			}
+		}
+		if (!exceptions.isEmpty())
+		{
+			Exception mainException = exceptions.get(0);
+			for (int i = 1, size = exceptions.size(); i < size; ++i)
+				mainException.addSuppressed(exceptions.get(i));
+			throw WrappedCheckedException.wrap(mainException);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PooledFactory\n" +
+			"{\n" +
+			"  leased: " + getLeasedCount() + ",\n" +
+			"  idle: " + idle.size() + ",\n" +
+			"  maximumSize: " + maximumSize + ",\n" +
+			"  closed: " + closed + "\n" +
+			"}";
+	}
+
+	/**
+	 * Borrows a value from the pool on demand.
+	 */
+	private final class Lease implements Factory<T>
+	{
+		/**
+		 * The borrowed value. Guarded by {@code this}.
+		 */
+		private T value;
+		/**
+		 * {@code true} if a value was borrowed. Guarded by {@code this}.
+		 */
+		private boolean borrowed;
+		/**
+		 * {@code true} if the lease was closed. Guarded by {@code this}.
+		 */
+		private boolean leaseClosed;
+
+		@Override
+		public synchronized T getValue()
+		{
+			if (leaseClosed)
+				throw new IllegalStateException("Lease is closed");
+			if (!borrowed)
+			{
+				value = borrow();
+				borrowed = true;
+			}
+			return value;
+		}
+
+		@Override
+		public synchronized boolean isInitialized()
+		{
+			return borrowed;
+		}
+
+		@Override
+		public void close()
+		{
+			T borrowedValue;
+			synchronized (this)
+			{
+				if (leaseClosed)
+					return;
+				leaseClosed = true;
+				if (!borrowed)
+					return;
+				borrowedValue = value;
+				value = null;
+			}
+			giveBack(borrowedValue);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Lease\n" +
+				"{\n" +
+				"  value: " + value + ",\n" +
+				"  closed: " + leaseClosed + "\n" +
+				"}";
+		}
+	}
+}
@@ -27,4 +27,20 @@ public interface Reference<T>
 	 * @return {@code true} if the value was initialized
 	 */
 	boolean isInitialized();
+
+	/**
+	 * Returns the name that the reference's measurements are reported under. By default, references are
+	 * named after their class, so references that are created by the same factory method, such as
+	 * {@link ConcurrentLazyFactory#create(java.util.function.Supplier, java.util.function.Consumer)}, share a
+	 * name. Subclasses may override this method to report each field under a different name, typically by
+	 * combining the class of the scope that owns the reference with the role of the reference in that scope.
+	 * The name should be a constant, because it is requested every time that a measurement is reported.
+	 *
+	 * @return the name of the reference
+	 * @see Metrics#getCollector()
+	 */
+	default String getMetricsName()
+	{
+		return getClass().getName();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,538 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe factory whose value expires a fixed amount of time after it is created.
+ * <p>
+ * Once a value enters its refresh-ahead window, the next request starts creating a replacement on a
+ * scheduler and returns the current value without blocking. Only one refresh runs at a time. If the
+ * replacement cannot be created, the current value is served until it expires. Requests for an expired value
+ * wait until a new value is created, but do not block requests that find a valid value.
+ * <p>
+ * Superseded values remain usable for a grace period after they are replaced, and are then passed to
+ * {@link #disposeValue(Object)}. Callers should not hold on to values for longer than the grace period.
+ * {@link #close()} disposes all values immediately.
+ * <p>
+ * The implementation is thread-safe.
+ *
+ * @param <T> the type of the value
+ */
+public abstract class RefreshingFactory<T> implements Factory<T>
+{
+	/**
+	 * Creates a new {@code RefreshingFactory}.
+	 *
+	 * @param <T>          the type of value returned by the factory
+	 * @param supplier     supplies the factory value
+	 * @param disposer     implements {@link #disposeValue(java.lang.Object) disposeValue(T)}
+	 * @param timeToLive   the amount of time after which a value expires
+	 * @param refreshAhead the amount of time before a value expires that it gets refreshed in the background
+	 * @param gracePeriod  the amount of time that a superseded value remains usable before it is disposed
+	 * @param scheduler    refreshes and disposes values, such as the JVM scope's scheduler
+	 * @return a new {@code RefreshingFactory}
+	 * @throws NullPointerException     if {@code timeToLive}, {@code refreshAhead}, {@code gracePeriod} or
+	 *                                  {@code scheduler} are null
+	 * @throws IllegalArgumentException if {@code timeToLive} is zero or negative, if {@code refreshAhead} or
+	 *                                  {@code gracePeriod} are negative or if {@code refreshAhead} is greater
+	 *                                  than or equal to {@code timeToLive}
+	 */
+	public static <T> RefreshingFactory<T> create(Supplier<T> supplier, Consumer<T> disposer,
+		Duration timeToLive, Duration refreshAhead, Duration gracePeriod, ScheduledExecutorService scheduler)
+	{
+		return new RefreshingFactory<T>(timeToLive, refreshAhead, gracePeriod, scheduler)
+		{
+			@Override
+			protected T createValue()
+			{
+				return supplier.get();
+			}
+
+			@Override
+			protected void disposeValue(T value)
+			{
+				disposer.accept(value);
+			}
+		};
+	}
+
+	/**
+	 * Creates a new {@code RefreshingFactory} that disposes its values by invoking {@code close()}. If
+	 * {@code close()} throws a checked exception, it is wrapped in a {@code RuntimeException} or an
+	 * exception that extends it.
+	 *
+	 * @param <T>          the type of value returned by the factory
+	 * @param supplier     supplies the factory value
+	 * @param timeToLive   the amount of time after which a value expires
+	 * @param refreshAhead the amount of time before a value expires that it gets refreshed in the background
+	 * @param gracePeriod  the amount of time that a superseded value remains usable before it is disposed
+	 * @param scheduler    refreshes and disposes values, such as the JVM scope's scheduler
+	 * @return a new {@code RefreshingFactory}
+	 * @throws NullPointerException     if {@code timeToLive}, {@code refreshAhead}, {@code gracePeriod} or
+	 *                                  {@code scheduler} are null
+	 * @throws IllegalArgumentException if {@code timeToLive} is zero or negative, if {@code refreshAhead} or
+	 *                                  {@code gracePeriod} are negative or if {@code refreshAhead} is greater
+	 *                                  than or equal to {@code timeToLive}
+	 */
+	public static <T extends AutoCloseable> RefreshingFactory<T> create(Supplier<T> supplier,
+		Duration timeToLive, Duration refreshAhead, Duration gracePeriod, ScheduledExecutorService scheduler)
+	{
+		return create(supplier, value ->
+		{
+			try
+			{
+				value.close();
+			}
+			catch (Exception e)
+			{
+				throw WrappedCheckedException.wrap(e);
+			}
+		}, timeToLive, refreshAhead, gracePeriod, scheduler);
+	}
+
+	private final long timeToLive;
+	private final long refreshAhead;
+	private final long gracePeriod;
+	private final ScheduledExecutorService scheduler;
+	/**
+	 * The current value, or {@code null} if no value was created. Updates are guarded by {@code this}.
+	 */
+	private volatile Entry<T> entry;
+	/**
+	 * Completes once the thread that is replacing an expired value is done; {@code null} if no such thread
+	 * exists. Guarded by {@code this}.
+	 */
+	private CompletableFuture<Entry<T>> replacement;
+	/**
+	 * Superseded values that were not disposed yet. Guarded by {@code this}.
+	 */
+	private final Set<T> retiredValues = Collections.newSetFromMap(new IdentityHashMap<>());
+	/**
+	 * {@code true} if a background refresh is in progress.
+	 */
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	/**
+	 * {@code true} if the factory was closed. Updates are guarded by {@code this}.
+	 */
+	private volatile boolean closed;
+	private final Logger log = LoggerFactory.getLogger(RefreshingFactory.class);
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param timeToLive   the amount of time after which a value expires
+	 * @param refreshAhead the amount of time before a value expires that it gets refreshed in the background
+	 * @param gracePeriod  the amount of time that a superseded value remains usable before it is disposed
+	 * @param scheduler    refreshes and disposes values, such as the JVM scope's scheduler
+	 * @throws NullPointerException     if any of the arguments are null
+	 * @throws IllegalArgumentException if {@code timeToLive} is zero or negative, if {@code refreshAhead} or
+	 *                                  {@code gracePeriod} are negative or if {@code refreshAhead} is greater
+	 *                                  than or equal to {@code timeToLive}
+	 */
+	protected RefreshingFactory(Duration timeToLive, Duration refreshAhead, Duration gracePeriod,
+		ScheduledExecutorService scheduler)
+	{
+		if (timeToLive == null)
+			throw new NullPointerException("timeToLive may not be null");
+		if (refreshAhead == null)
+			throw new NullPointerException("refreshAhead may not be null");
+		if (gracePeriod == null)
+			throw new NullPointerException("gracePeriod may not be null");
+		if (scheduler == null)
+			throw new NullPointerException("scheduler may not be null");
+		if (timeToLive.isNegative() || timeToLive.isZero())
+			throw new IllegalArgumentException("timeToLive must be positive.\n" +
+				"Actual: " + timeToLive);
+		if (refreshAhead.isNegative())
+			throw new IllegalArgumentException("refreshAhead may not be negative.\n" +
+				"Actual: " + refreshAhead);
+		if (refreshAhead.compareTo(timeToLive) >= 0)
+			throw new IllegalArgumentException("refreshAhead must be less than timeToLive.\n" +
+				"refreshAhead: " + refreshAhead + "\n" +
+				"timeToLive  : " + timeToLive);
+		if (gracePeriod.isNegative())
+			throw new IllegalArgumentException("gracePeriod may not be negative.\n" +
+				"Actual: " + gracePeriod);
+		this.timeToLive = timeToLive.toNanos();
+		this.refreshAhead = refreshAhead.toNanos();
+		this.gracePeriod = gracePeriod.toNanos();
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Creates a value. This method is invoked the first time {@link #getValue()} is invoked, and again each
+	 * time the value must be refreshed.
+	 *
+	 * @return the value
+	 */
+	protected abstract T createValue();
+
+	/**
+	 * Disposes a value.
+	 * <p>
+	 * This method is invoked once the grace period of a superseded value ends, and when {@link #close()} is
+	 * invoked.
+	 *
+	 * @param value the value to dispose
+	 */
+	protected abstract void disposeValue(T value);
+
+	/**
+	 * Returns the value, creating a new one if the current value expired.
+	 *
+	 * @return an object of type {@code <T>}
+	 * @throws IllegalStateException if the factory is closed
+	 */
+	@Override
+	public final T getValue()
+	{
+		Entry<T> current = entry;
+		if (current != null && !closed)
+		{
+			long remaining = current.expiresAt - System.nanoTime();
+			if (remaining > 0)
+			{
+				if (remaining <= refreshAhead)
+					refreshInBackground(current);
+				return current.value;
+			}
+		}
+		return getValueSlowPath();
+	}
+
+	/**
+	 * Creates a value, unless another thread is already doing so, in which case this method waits for it.
+	 * The value is created without holding the factory's lock, so other threads are not blocked from
+	 * reading the current value in the meantime.
+	 *
+	 * @return the value
+	 * @throws IllegalStateException if the factory is closed
+	 */
+	private T getValueSlowPath()
+	{
+		CompletableFuture<Entry<T>> future;
+		boolean creator;
+		synchronized (this)
+		{
+			if (closed)
+				throw new IllegalStateException("Factory is closed");
+			Entry<T> current = entry;
+			if (current != null && current.expiresAt - System.nanoTime() > 0)
+				return current.value;
+			future = replacement;
+			creator = future == null;
+			if (creator)
+			{
+				future = new CompletableFuture<>();
+				replacement = future;
+			}
+		}
+		if (!creator)
+		{
+			// Another thread is replacing the value
+			return awaitReplacement(future);
+		}
+
+		Entry<T> created;
+		try
+		{
+			created = new Entry<>(create(), System.nanoTime() + timeToLive);
+		}
+		catch (Throwable t)
+		{
+			synchronized (this)
+			{
+				replacement = null;
+			}
+			future.completeExceptionally(t);
+			throw t;
+		}
+		Entry<T> expired;
+		boolean wasClosed;
+		synchronized (this)
+		{
+			replacement = null;
+			wasClosed = closed;
+			if (wasClosed)
+				expired = null;
+			else
+			{
+				expired = entry;
+				entry = created;
+			}
+		}
+		if (wasClosed)
+		{
+			IllegalStateException e = new IllegalStateException("Factory is closed");
+			future.completeExceptionally(e);
+			disposeValue(created.value);
+			throw e;
+		}
+		future.complete(created);
+		if (expired != null)
+			retire(expired.value);
+		return created.value;
+	}
+
+	/**
+	 * Waits for the thread that is replacing an expired value.
+	 *
+	 * @param future completes once the value is replaced
+	 * @return the value
+	 * @throws IllegalStateException if the factory is closed
+	 */
+	private T awaitReplacement(CompletableFuture<Entry<T>> future)
+	{
+		try
+		{
+			return future.join().value;
+		}
+		catch (CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw WrappedCheckedException.wrap(cause);
+		}
+	}
+
+	/**
+	 * Starts refreshing the value in the background, unless a refresh is already in progress.
+	 *
+	 * @param current the entry to refresh
+	 */
+	private void refreshInBackground(Entry<T> current)
+	{
+		if (!refreshing.compareAndSet(false, true))
+			return;
+		try
+		{
+			scheduler.execute(() ->
+			{
+				try
+				{
+					replace(current, create());
+				}
+				catch (Throwable t)
+				{
+					log.warn("Failed to refresh the value. The current value will be used until it expires.",
+						t);
+				}
+				finally
+				{
+					refreshing.set(false);
+				}
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			refreshing.set(false);
+			log.warn("Failed to refresh the value. The current value will be used until it expires.", e);
+		}
+	}
+
+	/**
+	 * Replaces the value that was refreshed. If the value was replaced by another thread in the meantime,
+	 * such as a request that found it expired, the new value is stale and gets disposed instead.
+	 *
+	 * @param refreshed the entry that was refreshed
+	 * @param value     the new value
+	 */
+	private void replace(Entry<T> refreshed, T value)
+	{
+		boolean stale;
+		synchronized (this)
+		{
+			stale = closed || entry != refreshed;
+			if (!stale)
+				entry = new Entry<>(value, System.nanoTime() + timeToLive);
+		}
+		if (stale)
+		{
+			// No caller received the value
+			disposeValue(value);
+		}
+		else
+			retire(refreshed.value);
+	}
+
+	/**
+	 * Disposes a superseded value once its grace period ends.
+	 *
+	 * @param value the value
+	 */
+	private void retire(T value)
+	{
+		if (gracePeriod == 0)
+		{
+			disposeValue(value);
+			return;
+		}
+		synchronized (this)
+		{
+			// close() disposes the values that it finds in retiredValues
+			if (!closed)
+				retiredValues.add(value);
+		}
+		if (closed)
+		{
+			disposeValue(value);
+			return;
+		}
+		try
+		{
+			scheduler.schedule(() -> disposeRetired(value), gracePeriod, TimeUnit.NANOSECONDS);
+		}
+		catch (RejectedExecutionException e)
+		{
+			// The scheduler is shutting down
+			disposeRetired(value);
+		}
+	}
+
+	/**
+	 * Disposes a superseded value, unless {@link #close()} already did so.
+	 *
+	 * @param value the value
+	 */
+	private void disposeRetired(T value)
+	{
+		synchronized (this)
+		{
+			if (!retiredValues.remove(value))
+				return;
+		}
+		try
+		{
+			disposeValue(value);
+		}
+		catch (RuntimeException | Error e)
+		{
+			log.warn("Failed to dispose a superseded value", e);
+		}
+	}
+
+	/**
+	 * Creates a value and reports its creation time to the {@link Metrics#getCollector() metrics
+	 * collector}.
+	 *
+	 * @return the value
+	 */
+	private T create()
+	{
+		MetricsCollector metrics = Metrics.getCollector();
+		long start = System.nanoTime();
+		T result;
+		try
+		{
+			result = createValue();
+		}
+		catch (Throwable t)
+		{
+			metrics.valueCreationFailed(this, System.nanoTime() - start);
+			throw t;
+		}
+		metrics.valueCreated(this, System.nanoTime() - start);
+		return result;
+	}
+
+	@Override
+	public boolean isInitialized()
+	{
+		return entry != null;
+	}
+
+	/**
+	 * Disposes the current value and any superseded values whose grace period did not end yet. Subsequent
+	 * invocations of this method have no effect.
+	 *
+	 * @throws WrappedCheckedException if any of the values threw a checked exception while being disposed
+	 */
+	@Override
+	public final void close()
+	{
+		List<T> values;
+		synchronized (this)
+		{
+			if (closed)
+				return;
+			closed = true;
+			values = new ArrayList<>(retiredValues.size() + 1);
+			values.addAll(retiredValues);
+			retiredValues.clear();
+			Entry<T> current = entry;
+			if (current != null)
+				values.add(current.value);
+			entry = null;
+		}
+		List<WrappedCheckedException.CheckedRunnable> disposers = new ArrayList<>(values.size());
+		for (T value : values)
+			disposers.add(() -> disposeValue(value));
+		Scopes.runAll(disposers.toArray(new WrappedCheckedException.CheckedRunnable[0]));
+	}
+
+	@Override
+	public String toString()
+	{
+		Entry<T> current = entry;
+		StringBuilder result = new StringBuilder("RefreshingFactory\n" +
+			"{\n" +
+			"  initialized: " + (current != null));
+		if (current != null)
+		{
+			result.append(",\n").
+				append("  value: ").append(current.value).append(",\n").
+				append("  expiresIn: ").append(Duration.ofNanos(current.expiresAt - System.nanoTime()));
+		}
+		result.append(",\n").
+			append("  closed: ").append(closed).append("\n").
+			append("}");
+		return result.toString();
+	}
+
+	/**
+	 * A value and its expiration time.
+	 *
+	 * @param <T> the type of the value
+	 */
+	private static final class Entry<T>
+	{
+		final T value;
+		/**
+		 * The time that the value expires, relative to {@code System.nanoTime()}.
+		 */
+		final long expiresAt;
+
+		/**
+		 * Creates a new entry.
+		 *
+		 * @param value     the value
+		 * @param expiresAt the time that the value expires, relative to {@code System.nanoTime()}
+		 */
+		Entry(T value, long expiresAt)
+		{
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
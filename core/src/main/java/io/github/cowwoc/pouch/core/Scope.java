@@ -1,5 +1,8 @@
 package io.github.cowwoc.pouch.core;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * The lifespan of one or more variables.
  * <p>
@@ -44,6 +47,23 @@ public interface Scope extends AutoCloseable
 	 */
 	boolean isClosed();
 
+	/**
+	 * Initializes the scope's values ahead of time, so that the first caller does not pay for creating them.
+	 * <p>
+	 * By default, this method does nothing.
+	 *
+	 * @param executor the executor that initializes the values
+	 * @return a future that completes when all the values are initialized
+	 * @throws NullPointerException  if {@code executor} is null
+	 * @throws IllegalStateException if the scope is closed
+	 */
+	default CompletableFuture<Void> warmUp(Executor executor)
+	{
+		if (executor == null)
+			throw new NullPointerException("executor may not be null");
+		return CompletableFuture.completedFuture(null);
+	}
+
 	@Override
 	void close();
 }
\ No newline at end of file
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An executor whose tasks may not outlive a scope.
+ * <p>
+ * Each task runs on a new thread with the parent scope {@link CurrentScope bound to it}. On JDK 21 or newer,
+ * use {@code Thread.ofVirtual().factory()} to run tasks on virtual threads. The executor registers itself as
+ * a child of the parent scope, so the parent must close the executor before it closes its other children:
+ * <pre>
+ * {@code
+ * public void close()
+ * {
+ *   if (closed)
+ *     return;
+ *   closed = true;
+ *   Scopes.runAll(executor::close, () -> parent.removeChild(this));
+ * }
+ * }</pre>
+ * <p>
+ * {@link #close()} stops accepting new tasks and waits for the running tasks to complete. Tasks that are
+ * still running after the close timeout are interrupted, their futures are cancelled, and {@code close()}
+ * waits up to another close timeout for them to exit. Tasks that ignore the interrupt are logged, along with
+ * their stack traces, and continue running after {@code close()} returns.
+ * <p>
+ * The implementation is thread-safe.
+ */
+public final class ScopedExecutor extends AbstractExecutorService
+	implements Scope
+{
+	private final Scope parent;
+	private final ThreadFactory threadFactory;
+	private final Duration closeTimeout;
+	/**
+	 * The scopes that were registered with the executor. Tasks register the scopes that they create with the
+	 * parent scope instead, so this is usually empty.
+	 */
+	private final ChildScopes children = new LazyChildScopes();
+	/**
+	 * A map from each thread that is running a task to the task.
+	 */
+	private final Map<Thread, Runnable> threadToTask = new ConcurrentHashMap<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	/**
+	 * Signalled when the last task completes after shutdown.
+	 */
+	private final Condition terminated = lock.newCondition();
+	/**
+	 * The number of tasks that were accepted and did not complete. Guarded by {@code lock}.
+	 */
+	private int activeTasks;
+	/**
+	 * {@code true} if the executor no longer accepts new tasks. Guarded by {@code lock}.
+	 */
+	private boolean shutdown;
+	/**
+	 * {@code true} if {@link #close()} was invoked. Guarded by {@code lock}.
+	 */
+	private boolean closed;
+	private final Logger log = LoggerFactory.getLogger(ScopedExecutor.class);
+
+	/**
+	 * Creates a new executor and registers it as a child of {@code parent}.
+	 *
+	 * @param parent        the scope that the tasks may not outlive
+	 * @param threadFactory creates the threads that run the tasks
+	 * @param closeTimeout  the maximum amount of time that {@link #close()} waits for running tasks to
+	 *                      complete before interrupting them
+	 * @throws NullPointerException     if any of the arguments are null
+	 * @throws IllegalArgumentException if {@code closeTimeout} is negative
+	 * @throws IllegalStateException    if {@code parent} is closed
+	 */
+	public ScopedExecutor(Scope parent, ThreadFactory threadFactory, Duration closeTimeout)
+	{
+		if (parent == null)
+			throw new NullPointerException("parent may not be null");
+		if (threadFactory == null)
+			throw new NullPointerException("threadFactory may not be null");
+		if (closeTimeout == null)
+			throw new NullPointerException("closeTimeout may not be null");
+		if (closeTimeout.isNegative())
+			throw new IllegalArgumentException("closeTimeout may not be negative.\n" +
+				"Actual: " + closeTimeout);
+		this.parent = parent;
+		this.threadFactory = threadFactory;
+		this.closeTimeout = closeTimeout;
+		parent.addChild(this);
+	}
+
+	@Override
+	public void execute(Runnable command)
+	{
+		if (command == null)
+			throw new NullPointerException("command may not be null");
+		lock.lock();
+		try
+		{
+			if (shutdown)
+				throw new RejectedExecutionException("Executor is shut down");
+			++activeTasks;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		Thread thread;
+		try
+		{
+			thread = threadFactory.newThread(() ->
+			{
+				try
+				{
+					CurrentScope.run(parent, command);
+				}
+				finally
+				{
+					threadToTask.remove(Thread.currentThread());
+					taskCompleted();
+				}
+			});
+			if (thread == null)
+				throw new RejectedExecutionException("threadFactory returned null");
+			threadToTask.put(thread, command);
+			thread.start();
+		}
+		catch (RuntimeException | Error e)
+		{
+			taskCompleted();
+			throw e;
+		}
+	}
+
+	/**
+	 * Invoked when a task completes or fails to start.
+	 */
+	private void taskCompleted()
+	{
+		lock.lock();
+		try
+		{
+			--activeTasks;
+			if (shutdown && activeTasks == 0)
+				terminated.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void shutdown()
+	{
+		lock.lock();
+		try
+		{
+			shutdown = true;
+			if (activeTasks == 0)
+				terminated.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops accepting new tasks, cancels the futures returned by {@code submit()} and interrupts the running
+	 * tasks.
+	 *
+	 * @return an empty list because tasks start running as soon as they are submitted
+	 */
+	@Override
+	public List<Runnable> shutdownNow()
+	{
+		shutdown();
+		for (Entry<Thread, Runnable> entry : threadToTask.entrySet())
+		{
+			Runnable task = entry.getValue();
+			if (task instanceof Future)
+				((Future<?>) task).cancel(true);
+			else
+				entry.getKey().interrupt();
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public boolean isShutdown()
+	{
+		lock.lock();
+		try
+		{
+			return shutdown;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isTerminated()
+	{
+		lock.lock();
+		try
+		{
+			return shutdown && activeTasks == 0;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long nanos = unit.toNanos(timeout);
+		lock.lock();
+		try
+		{
+			while (!shutdown || activeTasks > 0)
+			{
+				if (nanos <= 0)
+					return false;
+				nanos = terminated.awaitNanos(nanos);
+			}
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void addChild(Scope child)
+	{
+		if (isShutdown())
+			throw new IllegalStateException("Executor is shut down");
+		children.add(child);
+	}
+
+	@Override
+	public void removeChild(Scope child)
+	{
+		// Children may remove themselves while the executor is closing them
+		children.remove(child);
+	}
+
+	@Override
+	public boolean isClosed()
+	{
+		return isShutdown();
+	}
+
+	/**
+	 * Stops accepting new tasks and waits for the running tasks to complete. Tasks that are still running
+	 * after the close timeout are interrupted, and this method waits up to another close timeout for them to
+	 * exit. Then closes the scopes that were registered with the executor. Subsequent invocations of this
+	 * method have no effect.
+	 *
+	 * @throws WrappedCheckedException if the thread is interrupted while waiting for the tasks to complete, or
+	 *                                 if a child scope threw an exception while closing
+	 */
+	@Override
+	public void close()
+	{
+		lock.lock();
+		try
+		{
+			if (closed)
+				return;
+			closed = true;
+			shutdown = true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		try
+		{
+			if (!awaitTermination(closeTimeout.toNanos(), TimeUnit.NANOSECONDS))
+			{
+				log.warn("{} tasks did not complete within {}. Interrupting them.", threadToTask.size(),
+					closeTimeout);
+				shutdownNow();
+				if (!awaitTermination(closeTimeout.toNanos(), TimeUnit.NANOSECONDS))
+					logRunningTasks();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			shutdownNow();
+			throw WrappedCheckedException.wrap(e);
+		}
+		finally
+		{
+			Scopes.runAll(() -> children.shutdown(closeTimeout), () -> parent.removeChild(this));
+		}
+	}
+
+	/**
+	 * Logs the tasks that are still running, along with their stack traces.
+	 */
+	private void logRunningTasks()
+	{
+		for (Entry<Thread, Runnable> entry : threadToTask.entrySet())
+		{
+			Thread thread = entry.getKey();
+			Throwable stackTrace = new Throwable("Stack trace of " + thread);
+			stackTrace.setStackTrace(thread.getStackTrace());
+			log.warn("{} is still running {} after being interrupted", thread, entry.getValue(), stackTrace);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		lock.lock();
+		try
+		{
+			return "ScopedExecutor\n" +
+				"{\n" +
+				"  activeTasks: " + activeTasks + ",\n" +
+				"  shutdown: " + shutdown + "\n" +
+				"}";
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+}
@@ -6,6 +6,7 @@ package io.github.cowwoc.pouch.core;
 
 import io.github.cowwoc.pouch.core.WrappedCheckedException.CheckedRunnable;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -49,4 +50,26 @@ public final class Scopes
 			throw WrappedCheckedException.wrap(mainException);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Runs one or more independent tasks concurrently, throwing any exceptions they throw after they all
+	 * finish executing. Use {@link TaskGraph} to run tasks that depend on each other.
+	 *
+	 * @param timeout the maximum amount of time to wait for the tasks to finish. Tasks that are still running
+	 *                after this amount of time are interrupted and reported as a {@code TimeoutException}.
+	 * @param tasks   a list of tasks
+	 * @see TaskGraph#run(Duration)
+	 * @throws NullPointerException    if any of the arguments are null
+	 * @throws WrappedCheckedException if any of the tasks threw checked exceptions, the thread was interrupted
+	 *                                 or a timeout occurred
+	 */
+	public static void runAllParallel(Duration timeout, CheckedRunnable... tasks)
+	{
+		if (tasks == null)
+			throw new NullPointerException("tasks may not be null");
+		TaskGraph graph = new TaskGraph();
+		for (CheckedRunnable task : tasks)
+			graph.add(task);
+		graph.run(timeout);
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Manages child scopes, optimized for scopes that create and close many children concurrently.
+ * <p>
+ * Unlike {@link ConcurrentChildScopes}, adding and removing children does not update any shared state
+ * other than the bin of a {@code ConcurrentHashMap} and a cell of a {@code LongAdder}, so threads rarely
+ * contend with each other. The cost is moved to {@link #shutdown(Duration)}, which is expected to be invoked
+ * once.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class StripedChildScopes implements ChildScopes
+{
+	/**
+	 * A map from each child scope to its metadata.
+	 */
+	private final Map<Scope, ChildScopeMetadata> scopeToMetadata = new ConcurrentHashMap<>();
+	/**
+	 * Counts the number of open scopes, including scopes that are in the process of being added.
+	 */
+	private final LongAdder openScopes = new LongAdder();
+	/**
+	 * {@code true} if shutdown has been requested.
+	 */
+	private volatile boolean shutdownRequested;
+	/**
+	 * The number of threads that are waiting in {@link #awaitEmpty(Duration)}.
+	 */
+	private final AtomicInteger emptyWaiters = new AtomicInteger();
+	/**
+	 * Signaled when a child is removed during shutdown, or while a thread is waiting for the children to be
+	 * removed.
+	 */
+	private final Object childRemoved = new Object();
+	/**
+	 * Determines the information that is recorded about child scopes.
+	 */
+	private final LeakTracking leakTracking;
+	private final Logger log = LoggerFactory.getLogger(StripedChildScopes.class);
+
+	/**
+	 * Creates a new StripedChildScopes that uses {@link LeakTracking#getDefault() the default leak
+	 * tracking}.
+	 */
+	public StripedChildScopes()
+	{
+		this(LeakTracking.getDefault());
+	}
+
+	/**
+	 * Creates a new StripedChildScopes.
+	 *
+	 * @param leakTracking determines the information that is recorded about child scopes, in order to report
+	 *                     leaks
+	 * @throws NullPointerException if {@code leakTracking} is null
+	 */
+	public StripedChildScopes(LeakTracking leakTracking)
+	{
+		if (leakTracking == null)
+			throw new NullPointerException("leakTracking may not be null");
+		this.leakTracking = leakTracking;
+	}
+
+	@Override
+	public void add(Scope child)
+	{
+		if (child == null)
+			throw new NullPointerException("child may not be null");
+		// Increment the counter before checking shutdownRequested. Either shutdown() sees the increment and
+		// waits for the child, or this thread sees that shutdown was requested.
+		openScopes.increment();
+		try
+		{
+			if (shutdownRequested)
+				throw new IllegalStateException("Shutdown has been requested");
+			ChildScopeMetadata existingValue = scopeToMetadata.putIfAbsent(child,
+				ChildScopeMetadata.create(leakTracking));
+			if (existingValue != null)
+				throw new IllegalStateException("child was already added to this scope " + existingValue);
+		}
+		catch (RuntimeException e)
+		{
+			decrementOpenScopes();
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean remove(Scope child)
+	{
+		// Avoid checking shutdownRequested because children must be allowed to remove themselves while
+		// shutdown is in progress
+		if (child == null)
+			throw new NullPointerException("child may not be null");
+		boolean result = scopeToMetadata.remove(child) != null;
+		if (result)
+			decrementOpenScopes();
+		return result;
+	}
+
+	/**
+	 * Decrements the number of open scopes, waking up {@code shutdown()} or {@code awaitEmpty()} if they are
+	 * waiting.
+	 */
+	private void decrementOpenScopes()
+	{
+		openScopes.decrement();
+		if (shutdownRequested || emptyWaiters.get() > 0)
+		{
+			synchronized (childRemoved)
+			{
+				childRemoved.notifyAll();
+			}
+		}
+	}
+
+	@Override
+	public int size()
+	{
+		return scopeToMetadata.size();
+	}
+
+	@Override
+	public boolean awaitEmpty(Duration timeout) throws InterruptedException
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		// Register before checking the number of open scopes. Either decrementOpenScopes() sees the waiter
+		// and signals it, or this thread sees the decrement.
+		emptyWaiters.incrementAndGet();
+		try
+		{
+			return awaitChildren(timeout);
+		}
+		finally
+		{
+			emptyWaiters.decrementAndGet();
+		}
+	}
+
+	@Override
+	public boolean shutdown(Duration timeout, ForcedClose forcedClose)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		if (forcedClose == null)
+			throw new NullPointerException("forcedClose may not be null");
+		synchronized (childRemoved)
+		{
+			if (shutdownRequested)
+				return false;
+			shutdownRequested = true;
+		}
+		List<Exception> exceptions = new ArrayList<>();
+		boolean result;
+		try
+		{
+			result = awaitChildren(timeout);
+		}
+		catch (InterruptedException e)
+		{
+			// Interrupted while waiting for child scopes to shut down
+			exceptions.add(e);
+			result = false;
+		}
+		forcedClose.close(scopeToMetadata, log, exceptions);
+		if (!exceptions.isEmpty())
+		{
+			Exception mainException = exceptions.get(0);
+			for (int i = 1, size = exceptions.size(); i < size; ++i)
+				mainException.addSuppressed(exceptions.get(i));
+			throw WrappedCheckedException.wrap(mainException);
+		}
+		return result;
+	}
+
+	/**
+	 * Waits for all child scopes to close.
+	 *
+	 * @param timeout the maximum amount of time to wait
+	 * @return {@code true} if all child scopes closed, {@code false} if a timeout occurred
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	private boolean awaitChildren(Duration timeout) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + timeout.toNanos();
+		synchronized (childRemoved)
+		{
+			while (openScopes.sum() > 0)
+			{
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					return false;
+				TimeUnit.NANOSECONDS.timedWait(childRemoved, remaining);
+			}
+		}
+		return true;
+	}
+}
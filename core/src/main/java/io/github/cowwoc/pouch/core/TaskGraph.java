@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import io.github.cowwoc.pouch.core.WrappedCheckedException.CheckedRunnable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs independent tasks concurrently, such as the steps of closing a scope.
+ * <p>
+ * A task may depend on tasks that were added before it, in which case it only starts after they finish.
+ * Tasks run even if the tasks that they depend on throw an exception or an error, or do not finish before
+ * the timeout.
+ * <p>
+ * Example:
+ * <pre>
+ * {@code
+ * TaskGraph graph = new TaskGraph();
+ * TaskGraph.Task closeChildren = graph.add(() -> children.shutdown(timeout));
+ * graph.add(connectionPool::close, closeChildren);
+ * graph.add(scheduler::close);
+ * graph.run(timeout);
+ * }</pre>
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class TaskGraph
+{
+	private final List<Task> tasks = new ArrayList<>();
+
+	/**
+	 * Creates a new instance.
+	 */
+	public TaskGraph()
+	{
+	}
+
+	/**
+	 * Adds a task to the graph.
+	 *
+	 * @param task         the task to run
+	 * @param dependencies the tasks that must finish before this task starts
+	 * @return the task
+	 * @throws NullPointerException     if any of the arguments are null
+	 * @throws IllegalArgumentException if any of the dependencies belong to a different graph
+	 */
+	public Task add(CheckedRunnable task, Task... dependencies)
+	{
+		if (task == null)
+			throw new NullPointerException("task may not be null");
+		if (dependencies == null)
+			throw new NullPointerException("dependencies may not be null");
+		for (Task dependency : dependencies)
+		{
+			if (dependency == null)
+				throw new NullPointerException("dependencies may not contain null elements");
+			if (dependency.graph != this)
+				throw new IllegalArgumentException("dependency belongs to a different graph: " + dependency);
+		}
+		Task result = new Task(this, tasks.size(), task, dependencies.clone());
+		tasks.add(result);
+		return result;
+	}
+
+	/**
+	 * Runs all the tasks, on daemon threads, and waits for them to finish.
+	 *
+	 * @param timeout the maximum amount of time to wait for the tasks to finish. Tasks that are still running
+	 *                after this amount of time are interrupted. Tasks that did not start yet run once their
+	 *                dependencies finish, without the caller waiting for them. Either way, a
+	 *                {@code TimeoutException} is reported.
+	 * @throws NullPointerException    if {@code timeout} is null
+	 * @throws WrappedCheckedException if any of the tasks threw checked exceptions, the thread was interrupted
+	 *                                 or a timeout occurred
+	 */
+	public void run(Duration timeout)
+	{
+		run(timeout, runnable ->
+		{
+			Thread thread = new Thread(runnable, "TaskGraph");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Runs all the tasks and waits for them to finish.
+	 * <p>
+	 * On JDK 21 or newer, use {@code Thread.ofVirtual().factory()} to run the tasks on virtual threads.
+	 *
+	 * @param timeout       the maximum amount of time to wait for the tasks to finish. Tasks that are still
+	 *                      running after this amount of time are interrupted. Tasks that did not start yet
+	 *                      run once their dependencies finish, without the caller waiting for them. Either
+	 *                      way, a {@code TimeoutException} is reported.
+	 * @param threadFactory creates the threads that run the tasks
+	 * @throws NullPointerException    if any of the arguments are null
+	 * @throws WrappedCheckedException if any of the tasks threw checked exceptions, the thread was interrupted
+	 *                                 or a timeout occurred
+	 */
+	public void run(Duration timeout, ThreadFactory threadFactory)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		if (threadFactory == null)
+			throw new NullPointerException("threadFactory may not be null");
+		if (tasks.isEmpty())
+			return;
+		Execution execution = new Execution(tasks.size());
+		List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+		ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+		List<Throwable> exceptions = new ArrayList<>();
+		try
+		{
+			for (Task task : tasks)
+			{
+				CompletableFuture<?>[] dependencies = new CompletableFuture<?>[task.dependencies.length];
+				for (int i = 0; i < dependencies.length; ++i)
+					dependencies[i] = futures.get(task.dependencies[i].index);
+				// execute() never throws, so each task's future completes normally and its dependents run
+				futures.add(CompletableFuture.allOf(dependencies).thenRunAsync(() -> execution.execute(task),
+					executor));
+			}
+			CompletableFuture<Void> allTasks = CompletableFuture.allOf(futures.toArray(
+				new CompletableFuture<?>[0]));
+			// Tasks that are pending after a timeout need the executor, so it shuts down once they finish
+			allTasks.whenComplete((ignored, t) -> executor.shutdown());
+			allTasks.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			// Interrupted while waiting for the tasks to finish
+			exceptions.add(e);
+		}
+		catch (ExecutionException e)
+		{
+			// Thrown if the executor could not create a thread
+			exceptions.add(e.getCause());
+		}
+		catch (TimeoutException e)
+		{
+			int remaining = 0;
+			for (CompletableFuture<Void> future : futures)
+				if (!future.isDone())
+					++remaining;
+			exceptions.add(new TimeoutException(remaining + " out of " + tasks.size() +
+				" tasks did not finish within " + timeout));
+		}
+		finally
+		{
+			// Exceptions are reported in the order that the tasks were added, to match Scopes.runAll()
+			exceptions.addAll(0, execution.collectExceptions());
+			execution.interruptRunningTasks();
+		}
+		if (!exceptions.isEmpty())
+		{
+			Throwable mainException = exceptions.get(0);
+			for (int i = 1, size = exceptions.size(); i < size; ++i)
+				mainException.addSuppressed(exceptions.get(i));
+			if (mainException instanceof Error)
+				throw (Error) mainException;
+			throw WrappedCheckedException.wrap(mainException);
+		}
+	}
+
+	/**
+	 * The state of a single invocation of {@link #run(Duration, ThreadFactory)}.
+	 */
+	private static final class Execution
+	{
+		/**
+		 * Indicates that the exceptions were already reported to the caller.
+		 */
+		private static final Throwable REPORTED = new Throwable("Reported", null, false, false)
+		{
+		};
+		/**
+		 * The exception thrown by each task; {@code null} if the task did not throw an exception.
+		 */
+		private final AtomicReferenceArray<Throwable> taskToException;
+		/**
+		 * The thread that is running each task; {@code null} if the task is not running.
+		 */
+		private final AtomicReferenceArray<Thread> taskToRunner;
+		private final Logger log = LoggerFactory.getLogger(TaskGraph.class);
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param size the number of tasks
+		 */
+		Execution(int size)
+		{
+			this.taskToException = new AtomicReferenceArray<>(size);
+			this.taskToRunner = new AtomicReferenceArray<>(size);
+		}
+
+		/**
+		 * Runs a task, recording any exception that it throws.
+		 *
+		 * @param task the task
+		 */
+		void execute(Task task)
+		{
+			taskToRunner.set(task.index, Thread.currentThread());
+			try
+			{
+				task.task.run();
+			}
+			catch (Throwable t)
+			{
+				// Errors are recorded too, so that the tasks that depend on this one still run
+				if (!taskToException.compareAndSet(task.index, null, t))
+					log.warn("{} failed after the caller stopped waiting for it", task, t);
+			}
+			finally
+			{
+				taskToRunner.set(task.index, null);
+				// Avoid leaking an interrupt from interruptRunningTasks() to the thread's next task
+				Thread.interrupted();
+			}
+		}
+
+		/**
+		 * Returns the exceptions that the tasks threw so far. Tasks that fail after this method returns log
+		 * their exceptions instead.
+		 *
+		 * @return the exceptions, in the order that the tasks were added
+		 */
+		List<Throwable> collectExceptions()
+		{
+			List<Throwable> exceptions = new ArrayList<>();
+			for (int i = 0, size = taskToException.length(); i < size; ++i)
+			{
+				Throwable t = taskToException.getAndSet(i, REPORTED);
+				if (t != null)
+					exceptions.add(t);
+			}
+			return exceptions;
+		}
+
+		/**
+		 * Interrupts the tasks that are running.
+		 */
+		void interruptRunningTasks()
+		{
+			for (int i = 0, size = taskToRunner.length(); i < size; ++i)
+			{
+				Thread runner = taskToRunner.get(i);
+				if (runner != null)
+					runner.interrupt();
+			}
+		}
+	}
+
+	/**
+	 * A task in the graph.
+	 */
+	public static final class Task
+	{
+		private final TaskGraph graph;
+		/**
+		 * The order in which the task was added to the graph.
+		 */
+		private final int index;
+		private final CheckedRunnable task;
+		private final Task[] dependencies;
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param graph        the graph that the task belongs to
+		 * @param index        the order in which the task was added to the graph
+		 * @param task         the task to run
+		 * @param dependencies the tasks that must finish before this task starts
+		 */
+		private Task(TaskGraph graph, int index, CheckedRunnable task, Task[] dependencies)
+		{
+			this.graph = graph;
+			this.index = index;
+			this.task = task;
+			this.dependencies = dependencies;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Task " + index;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code AsyncLazyFactory} disposes every value that it creates.
+ */
+public final class TestAsyncLazyFactory
+{
+	private static final long TIMEOUT_MILLIS = 10_000;
+	private final List<Integer> disposed = new CopyOnWriteArrayList<>();
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void beforeEach()
+	{
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@AfterEach
+	public void afterEach()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void closeDisposesCreatedValue()
+	{
+		AsyncLazyFactory<Integer> factory = AsyncLazyFactory.create(() -> 1, disposed::add, executor);
+		assertFalse(factory.isInitialized());
+		assertEquals(1, factory.getValue());
+		assertTrue(factory.isInitialized());
+
+		factory.close();
+		factory.close();
+		assertEquals(Collections.singletonList(1), disposed);
+		assertThrows(IllegalStateException.class, factory::getValue);
+	}
+
+	@Test
+	public void closeWhileCreatingDisposesValue() throws Exception
+	{
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AsyncLazyFactory<Integer> factory = AsyncLazyFactory.create(() ->
+		{
+			creating.countDown();
+			await(release);
+			return 1;
+		}, disposed::add, executor);
+		CompletableFuture<Integer> value = factory.getValueAsync();
+		assertTrue(creating.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+		factory.close();
+		assertTrue(value.isCompletedExceptionally());
+		assertEquals(Collections.emptyList(), disposed);
+
+		// The value is disposed by the executor once it is created
+		release.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		assertEquals(Collections.singletonList(1), disposed);
+		assertThrows(IllegalStateException.class, factory::getValue);
+	}
+
+	@Test
+	public void closeBeforeCreationStarts()
+	{
+		List<Runnable> held = new ArrayList<>();
+		AtomicInteger created = new AtomicInteger();
+		AsyncLazyFactory<Integer> factory = AsyncLazyFactory.create(created::incrementAndGet, disposed::add,
+			held::add);
+		factory.start();
+		factory.close();
+
+		held.get(0).run();
+		assertEquals(0, created.get());
+		assertEquals(Collections.emptyList(), disposed);
+	}
+
+	@Test
+	public void failedCreationIsRetried()
+	{
+		AtomicInteger attempts = new AtomicInteger();
+		AsyncLazyFactory<Integer> factory = AsyncLazyFactory.create(() ->
+		{
+			if (attempts.incrementAndGet() == 1)
+				throw new IllegalStateException("First attempt fails");
+			return 2;
+		}, disposed::add, executor);
+		assertThrows(IllegalStateException.class, factory::getValue);
+		assertEquals(2, factory.getValue());
+		assertEquals(2, attempts.get());
+
+		factory.close();
+		assertEquals(Collections.singletonList(2), disposed);
+	}
+
+	/**
+	 * Waits for a latch to count down.
+	 *
+	 * @param latch the latch
+	 * @throws AssertionError if the test times out or the thread is interrupted
+	 */
+	private static void await(CountDownLatch latch)
+	{
+		try
+		{
+			if (!latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+				throw new AssertionError("Test timed out");
+		}
+		catch (InterruptedException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code Bulkhead} admits callers in the order that they arrived, and rejects callers that
+ * cannot be admitted in time.
+ */
+public final class TestBulkhead
+{
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	public void afterEach()
+	{
+		executor.shutdownNow();
+		Metrics.setCollector(MetricsCollector.NO_OP);
+	}
+
+	@Test
+	public void admitsCallersInArrivalOrder() throws Exception
+	{
+		Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+		assertTrue(bulkhead.tryAcquire(Duration.ZERO));
+
+		List<Integer> admitted = new CopyOnWriteArrayList<>();
+		CountDownLatch proceed = new CountDownLatch(1);
+		List<Future<Boolean>> callers = new ArrayList<>();
+		for (int i = 0; i < 5; ++i)
+		{
+			int id = i;
+			callers.add(executor.submit(() ->
+			{
+				if (!bulkhead.tryAcquire(TIMEOUT))
+					return false;
+				admitted.add(id);
+				// Hold the permit so that the test can try to overtake the remaining callers
+				await(proceed);
+				bulkhead.release();
+				return true;
+			}));
+			// Start the next caller once this one is queued
+			awaitQueueDepth(bulkhead, i + 1);
+		}
+
+		bulkhead.release();
+		// A new caller may not overtake the callers that are already waiting
+		assertFalse(bulkhead.tryAcquire(Duration.ZERO));
+		proceed.countDown();
+		for (Future<Boolean> caller : callers)
+			assertTrue(caller.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4), admitted);
+		assertEquals(0, bulkhead.getActiveCount());
+		assertEquals(0, bulkhead.getQueueDepth());
+	}
+
+	@Test
+	public void rejectsCallersAfterTimeout()
+	{
+		CountingCollector collector = new CountingCollector();
+		Metrics.setCollector(collector);
+		Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+		assertTrue(bulkhead.tryAcquire(Duration.ZERO));
+
+		Duration timeout = Duration.ofMillis(100);
+		long start = System.nanoTime();
+		assertFalse(bulkhead.tryAcquire(timeout));
+		assertTrue(System.nanoTime() - start >= timeout.toNanos(),
+			"tryAcquire() returned before the timeout");
+		assertEquals(1, collector.queued.get());
+		assertEquals(1, collector.rejected.get());
+		assertEquals(0, bulkhead.getQueueDepth());
+		assertEquals(1, bulkhead.getActiveCount());
+
+		bulkhead.release();
+		assertTrue(bulkhead.tryAcquire(timeout));
+		assertEquals(2, collector.admitted.get());
+	}
+
+	@Test
+	public void rejectsCallersIfQueueIsFull()
+	{
+		CountingCollector collector = new CountingCollector();
+		Metrics.setCollector(collector);
+		Bulkhead bulkhead = new Bulkhead("test", 1, 0);
+		assertTrue(bulkhead.tryAcquire(Duration.ZERO));
+
+		long start = System.nanoTime();
+		assertFalse(bulkhead.tryAcquire(TIMEOUT));
+		assertTrue(System.nanoTime() - start < TIMEOUT.toNanos() / 2, "tryAcquire() waited for a full queue");
+		assertEquals(0, collector.queued.get());
+		assertEquals(1, collector.rejected.get());
+		assertEquals(0, bulkhead.getQueueDepth());
+	}
+
+	/**
+	 * Waits for a latch to count down.
+	 *
+	 * @param latch the latch
+	 * @throws AssertionError if the test times out or the thread is interrupted
+	 */
+	private static void await(CountDownLatch latch)
+	{
+		try
+		{
+			if (!latch.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+				throw new AssertionError("Test timed out");
+		}
+		catch (InterruptedException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Waits for a number of callers to queue up.
+	 *
+	 * @param bulkhead the bulkhead
+	 * @param depth    the number of callers to wait for
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 * @throws AssertionError       if the test times out
+	 */
+	private static void awaitQueueDepth(Bulkhead bulkhead, int depth) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (bulkhead.getQueueDepth() < depth)
+		{
+			if (System.nanoTime() - deadline > 0)
+				throw new AssertionError("Test timed out");
+			Thread.sleep(1);
+		}
+		// Give the caller a chance to block on the semaphore after it incremented the queue depth
+		Thread.sleep(50);
+	}
+
+	/**
+	 * Counts the events that a bulkhead reports.
+	 */
+	private static final class CountingCollector implements MetricsCollector
+	{
+		final AtomicInteger queued = new AtomicInteger();
+		final AtomicInteger admitted = new AtomicInteger();
+		final AtomicInteger rejected = new AtomicInteger();
+
+		@Override
+		public void queued(Bulkhead bulkhead, int queueDepth)
+		{
+			queued.incrementAndGet();
+		}
+
+		@Override
+		public void admitted(Bulkhead bulkhead, long nanos)
+		{
+			admitted.incrementAndGet();
+		}
+
+		@Override
+		public void rejected(Bulkhead bulkhead, long nanos)
+		{
+			rejected.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code ChildScopes} implementations wake up threads that wait for their children to be
+ * removed.
+ */
+public final class TestChildScopes
+{
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Test
+	public void concurrentChildScopes() throws Exception
+	{
+		assertAwaitEmpty(new ConcurrentChildScopes());
+	}
+
+	@Test
+	public void stripedChildScopes() throws Exception
+	{
+		assertAwaitEmpty(new StripedChildScopes());
+	}
+
+	@Test
+	public void lazyChildScopes() throws Exception
+	{
+		LazyChildScopes children = new LazyChildScopes();
+		assertTrue(children.awaitEmpty(Duration.ZERO));
+		assertAwaitEmpty(children);
+	}
+
+	/**
+	 * Ensures that {@code awaitEmpty()} times out while a child is registered, and returns once it is
+	 * removed.
+	 *
+	 * @param children the child scopes
+	 * @throws Exception if the test fails
+	 */
+	private static void assertAwaitEmpty(ChildScopes children) throws Exception
+	{
+		Scope child = new NoOpScope();
+		children.add(child);
+		assertFalse(children.awaitEmpty(Duration.ofMillis(50)));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Future<Boolean> empty = executor.submit(() -> children.awaitEmpty(TIMEOUT));
+			// Give the thread a chance to start waiting
+			Thread.sleep(50);
+			long start = System.nanoTime();
+			children.remove(child);
+			assertTrue(empty.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+			assertTrue(System.nanoTime() - start < TIMEOUT.toNanos() / 2, "awaitEmpty() was not woken up");
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		// Children may still be added
+		children.add(child);
+		children.remove(child);
+	}
+
+	/**
+	 * A scope that does nothing.
+	 */
+	private static final class NoOpScope implements Scope
+	{
+		@Override
+		public void addChild(Scope child)
+		{
+		}
+
+		@Override
+		public void removeChild(Scope child)
+		{
+		}
+
+		@Override
+		public boolean isClosed()
+		{
+			return false;
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
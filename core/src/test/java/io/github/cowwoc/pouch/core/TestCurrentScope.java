@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code CurrentScope} binds scopes to threads and ties forked subtasks to their scope.
+ */
+public final class TestCurrentScope
+{
+	private static final long TIMEOUT_MILLIS = 10_000;
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void beforeEach()
+	{
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@AfterEach
+	public void afterEach()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void runBindsAndRestoresScope()
+	{
+		TestScope outer = new TestScope();
+		TestScope inner = new TestScope();
+		assertFalse(CurrentScope.isBound());
+		assertThrows(IllegalStateException.class, CurrentScope::get);
+
+		CurrentScope.run(outer, () ->
+		{
+			assertSame(outer, CurrentScope.get());
+			assertThrows(IllegalStateException.class, () -> CurrentScope.run(inner, () ->
+			{
+				assertSame(inner, CurrentScope.get(TestScope.class));
+				throw new IllegalStateException("Task failed");
+			}));
+			// The outer scope is restored even if the task fails
+			assertSame(outer, CurrentScope.get());
+			assertThrows(IllegalStateException.class, () -> CurrentScope.get(ScopedExecutor.class));
+		});
+		assertFalse(CurrentScope.isBound());
+	}
+
+	@Test
+	public void forkRegistersSubtaskUntilItCompletes() throws Exception
+	{
+		TestScope scope = new TestScope();
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicReference<Scope> boundScope = new AtomicReference<>();
+		CompletableFuture<String> result = CurrentScope.call(scope, () -> CurrentScope.fork(() ->
+		{
+			boundScope.set(CurrentScope.get());
+			await(release);
+			return "done";
+		}, executor));
+		assertEquals(1, scope.children.size());
+
+		release.countDown();
+		assertEquals("done", result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		assertSame(scope, boundScope.get());
+		// The subtask detaches itself once it completes
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		assertEquals(0, scope.children.size());
+	}
+
+	@Test
+	public void forkDetachesIfExecutorRejectsSubtask()
+	{
+		TestScope scope = new TestScope();
+		executor.shutdown();
+		CurrentScope.run(scope, () -> assertThrows(RejectedExecutionException.class,
+			() -> CurrentScope.fork(() -> "rejected", executor)));
+		assertEquals(0, scope.children.size());
+		assertThrows(IllegalStateException.class, () -> CurrentScope.fork(() -> "unbound", executor));
+	}
+
+	@Test
+	public void closeBeforeSubtaskStarts() throws Exception
+	{
+		TestScope scope = new TestScope();
+		List<Runnable> held = new ArrayList<>();
+		AtomicBoolean ran = new AtomicBoolean();
+		CompletableFuture<String> result = CurrentScope.call(scope, () -> CurrentScope.fork(() ->
+		{
+			ran.set(true);
+			return "done";
+		}, held::add));
+		assertEquals(1, scope.children.size());
+
+		scope.children.get(0).close();
+		assertTrue(result.isCancelled());
+		assertEquals(0, scope.children.size());
+
+		// The executor runs the subtask after it was closed
+		held.get(0).run();
+		assertFalse(ran.get());
+	}
+
+	@Test
+	public void closeInterruptsRunningSubtask() throws Exception
+	{
+		TestScope scope = new TestScope();
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		CompletableFuture<String> result = CurrentScope.call(scope, () -> CurrentScope.fork(() ->
+		{
+			started.countDown();
+			try
+			{
+				Thread.sleep(TIMEOUT_MILLIS);
+			}
+			catch (InterruptedException e)
+			{
+				interrupted.set(true);
+			}
+			return "done";
+		}, executor));
+		assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+		scope.children.get(0).close();
+		assertTrue(result.isCancelled());
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+		assertTrue(interrupted.get());
+		assertEquals(0, scope.children.size());
+	}
+
+	/**
+	 * Waits for a latch to count down.
+	 *
+	 * @param latch the latch
+	 * @throws AssertionError if the test times out or the thread is interrupted
+	 */
+	private static void await(CountDownLatch latch)
+	{
+		try
+		{
+			if (!latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+				throw new AssertionError("Test timed out");
+		}
+		catch (InterruptedException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * A scope that exposes its children.
+	 */
+	private static final class TestScope implements Scope
+	{
+		final List<Scope> children = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void addChild(Scope child)
+		{
+			children.add(child);
+		}
+
+		@Override
+		public void removeChild(Scope child)
+		{
+			children.remove(child);
+		}
+
+		@Override
+		public boolean isClosed()
+		{
+			return false;
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import io.github.cowwoc.pouch.core.FailurePolicy.RecentFailure;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code FailurePolicy} backs off after consecutive failures, and that lazy references record
+ * every failure of {@code createValue()}.
+ */
+public final class TestFailurePolicy
+{
+	private static final Duration INITIAL_DELAY = Duration.ofSeconds(1);
+	private static final Duration MAXIMUM_DELAY = Duration.ofSeconds(5);
+
+	@Test
+	public void backoffDoublesUpToMaximum()
+	{
+		FailurePolicy policy = FailurePolicy.backoff(INITIAL_DELAY, MAXIMUM_DELAY);
+		IOException cause = new IOException("Failed");
+		RecentFailure failure = null;
+		long[] expectedDelays = {1, 2, 4, 5, 5};
+		for (int i = 0; i < expectedDelays.length; ++i)
+		{
+			long before = System.nanoTime();
+			failure = policy.onFailure(failure, cause);
+			long after = System.nanoTime();
+
+			assertEquals(i + 1, failure.getConsecutiveFailures());
+			long delay = Duration.ofSeconds(expectedDelays[i]).toNanos();
+			assertTrue(failure.getRetryAt() - before >= delay, "Failure " + (i + 1) + " retried too soon");
+			assertTrue(failure.getRetryAt() - after <= delay, "Failure " + (i + 1) + " retried too late");
+		}
+	}
+
+	@Test
+	public void backoffDoesNotOverflow()
+	{
+		Duration maximumDelay = Duration.ofDays(365);
+		FailurePolicy policy = FailurePolicy.backoff(INITIAL_DELAY, maximumDelay);
+		RecentFailure failure = null;
+		for (int i = 0; i < 100; ++i)
+		{
+			failure = policy.onFailure(failure, new IOException("Failed"));
+			long remaining = failure.getRetryAt() - System.nanoTime();
+			assertTrue(remaining > 0 && remaining <= maximumDelay.toNanos(),
+				"Failure " + (i + 1) + " overflowed: " + remaining);
+		}
+	}
+
+	@Test
+	public void retryImmediatelyForgetsFailures()
+	{
+		assertNull(FailurePolicy.retryImmediately().onFailure(null, new IOException("Failed")));
+	}
+
+	@Test
+	public void rejectsInvalidDelays()
+	{
+		assertThrows(NullPointerException.class, () -> FailurePolicy.backoff(null, MAXIMUM_DELAY));
+		assertThrows(IllegalArgumentException.class,
+			() -> FailurePolicy.backoff(Duration.ZERO, MAXIMUM_DELAY));
+		assertThrows(IllegalArgumentException.class,
+			() -> FailurePolicy.backoff(MAXIMUM_DELAY, INITIAL_DELAY));
+	}
+
+	@Test
+	public void referenceFailsFastDuringWindow() throws InterruptedException
+	{
+		AtomicInteger attempts = new AtomicInteger();
+		ConcurrentLazyReference<String> reference = ConcurrentLazyReference.create(() ->
+		{
+			if (attempts.incrementAndGet() == 1)
+				throw new IllegalStateException("First attempt fails");
+			return "value";
+		}, FailurePolicy.backoff(Duration.ofMillis(100), Duration.ofMillis(100)));
+		IllegalStateException failure = assertThrows(IllegalStateException.class, reference::getValue);
+
+		// Callers fail fast without invoking createValue() again
+		IllegalStateException fastFailure = assertThrows(IllegalStateException.class, reference::getValue);
+		assertSame(failure, fastFailure.getCause());
+		assertEquals(1, attempts.get());
+
+		Thread.sleep(200);
+		assertEquals("value", reference.getValue());
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	public void factoryFailsFastDuringWindow() throws InterruptedException
+	{
+		AtomicInteger attempts = new AtomicInteger();
+		ConcurrentLazyFactory<String> factory = ConcurrentLazyFactory.create(() ->
+		{
+			if (attempts.incrementAndGet() == 1)
+				throw new IllegalStateException("First attempt fails");
+			return "value";
+		}, value ->
+		{
+		}, FailurePolicy.backoff(Duration.ofMillis(100), Duration.ofMillis(100)));
+		IllegalStateException failure = assertThrows(IllegalStateException.class, factory::getValue);
+
+		IllegalStateException fastFailure = assertThrows(IllegalStateException.class, factory::getValue);
+		assertSame(failure, fastFailure.getCause());
+		assertEquals(1, attempts.get());
+
+		Thread.sleep(200);
+		assertEquals("value", factory.getValue());
+		assertEquals(2, attempts.get());
+		factory.close();
+	}
+
+	@Test
+	public void referenceRecordsCheckedException()
+	{
+		CountingCollector collector = new CountingCollector();
+		Metrics.setCollector(collector);
+		try
+		{
+			IOException cause = new IOException("Failed");
+			AtomicInteger attempts = new AtomicInteger();
+			ConcurrentLazyReference<String> reference = ConcurrentLazyReference.create(() ->
+			{
+				attempts.incrementAndGet();
+				return TestFailurePolicy.<RuntimeException>sneakyThrow(cause);
+			}, FailurePolicy.backoff(MAXIMUM_DELAY, MAXIMUM_DELAY));
+			assertSame(cause, assertThrows(IOException.class, reference::getValue));
+			assertEquals(1, collector.failures.get());
+
+			// The checked exception was recorded by the failure policy
+			assertSame(cause, assertThrows(IllegalStateException.class, reference::getValue).getCause());
+			assertEquals(1, attempts.get());
+		}
+		finally
+		{
+			Metrics.setCollector(MetricsCollector.NO_OP);
+		}
+	}
+
+	@Test
+	public void factoryRecordsCheckedException()
+	{
+		CountingCollector collector = new CountingCollector();
+		Metrics.setCollector(collector);
+		try
+		{
+			IOException cause = new IOException("Failed");
+			AtomicInteger attempts = new AtomicInteger();
+			ConcurrentLazyFactory<String> factory = ConcurrentLazyFactory.create(() ->
+			{
+				attempts.incrementAndGet();
+				return TestFailurePolicy.<RuntimeException>sneakyThrow(cause);
+			}, value ->
+			{
+			}, FailurePolicy.backoff(MAXIMUM_DELAY, MAXIMUM_DELAY));
+			assertSame(cause, assertThrows(IOException.class, factory::getValue));
+			assertEquals(1, collector.failures.get());
+
+			assertSame(cause, assertThrows(IllegalStateException.class, factory::getValue).getCause());
+			assertEquals(1, attempts.get());
+			factory.close();
+		}
+		finally
+		{
+			Metrics.setCollector(MetricsCollector.NO_OP);
+		}
+	}
+
+	@Test
+	public void lazyReferenceRecordsCheckedException()
+	{
+		CountingCollector collector = new CountingCollector();
+		Metrics.setCollector(collector);
+		try
+		{
+			IOException cause = new IOException("Failed");
+			LazyReference<String> reference = LazyReference.create(() ->
+				TestFailurePolicy.<RuntimeException>sneakyThrow(cause));
+			assertSame(cause, assertThrows(IOException.class, reference::getValue));
+			assertEquals(1, collector.failures.get());
+		}
+		finally
+		{
+			Metrics.setCollector(MetricsCollector.NO_OP);
+		}
+	}
+
+	/**
+	 * Throws a checked exception without declaring it.
+	 *
+	 * @param <E>       the type of exception that the compiler sees
+	 * @param throwable the exception to throw
+	 * @return never returns
+	 * @throws E the exception
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E extends Throwable> String sneakyThrow(Throwable throwable) throws E
+	{
+		throw (E) throwable;
+	}
+
+	/**
+	 * Counts the number of times that values could not be created.
+	 */
+	private static final class CountingCollector implements MetricsCollector
+	{
+		final AtomicInteger failures = new AtomicInteger();
+
+		@Override
+		public void valueCreationFailed(Reference<?> reference, long nanos)
+		{
+			failures.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code LazyFactoryMap} evicts and disposes values correctly.
+ */
+public final class TestLazyFactoryMap
+{
+	private static final long TIMEOUT_MILLIS = 10_000;
+	private final List<String> disposed = new CopyOnWriteArrayList<>();
+
+	@Test
+	public void evictsLeastRecentlyUsed()
+	{
+		try (LazyFactoryMap<String, String> map = LazyFactoryMap.create(key -> key, (key, value) ->
+			disposed.add(value), 2))
+		{
+			map.getValue("a");
+			map.getValue("b");
+			// "a" becomes the most recently used value
+			map.getValue("a");
+			map.getValue("c");
+			assertEquals(Collections.singletonList("b"), disposed);
+			assertEquals(2, map.size());
+		}
+		assertEquals(3, disposed.size());
+	}
+
+	@Test
+	public void evictsUntilWeightFits()
+	{
+		try (LazyFactoryMap<String, String> map = new LazyFactoryMap<String, String>(5)
+		{
+			@Override
+			protected String createValue(String key)
+			{
+				return key;
+			}
+
+			@Override
+			protected void disposeValue(String key, String value)
+			{
+				disposed.add(value);
+			}
+
+			@Override
+			protected long weigh(String key, String value)
+			{
+				return value.length();
+			}
+		})
+		{
+			map.getValue("aaa");
+			map.getValue("bb");
+			assertEquals(Collections.emptyList(), disposed);
+
+			map.getValue("c");
+			assertEquals(Collections.singletonList("aaa"), disposed);
+
+			// A value that exceeds the limit on its own evicts every other value, but is retained
+			map.getValue("dddddd");
+			assertEquals(Arrays.asList("aaa", "bb", "c"), disposed);
+			assertEquals(1, map.size());
+			assertEquals("dddddd", map.getValue("dddddd"));
+		}
+	}
+
+	@Test
+	public void leasedValueIsDisposedWhenReleased()
+	{
+		AtomicInteger nextId = new AtomicInteger();
+		try (LazyFactoryMap<String, String> map = LazyFactoryMap.create(key -> key + nextId.getAndIncrement(),
+			(key, value) -> disposed.add(value), 1))
+		{
+			Factory<String> lease = map.lease("a");
+			assertFalse(lease.isInitialized());
+			assertEquals("a0", lease.getValue());
+
+			// Evicts "a0", which is still leased
+			map.getValue("b");
+			assertEquals(Collections.emptyList(), disposed);
+			assertEquals("a0", lease.getValue());
+
+			// The evicted value is no longer returned by the map
+			assertEquals("a2", map.getValue("a"));
+			assertEquals(Collections.singletonList("b1"), disposed);
+
+			lease.close();
+			assertEquals(Arrays.asList("b1", "a0"), disposed);
+			assertThrows(IllegalStateException.class, lease::getValue);
+		}
+	}
+
+	@Test
+	public void invalidateDuringCreation() throws Exception
+	{
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger nextId = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try (LazyFactoryMap<String, String> map = LazyFactoryMap.create(key ->
+		{
+			int id = nextId.getAndIncrement();
+			if (id == 0)
+			{
+				creating.countDown();
+				await(release);
+			}
+			return key + id;
+		}, (key, value) -> disposed.add(value), 10))
+		{
+			Future<String> value = executor.submit(() -> map.getValue("a"));
+			assertTrue(creating.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+			// invalidate() waits for the value to be created
+			Future<?> invalidate = executor.submit(() -> map.invalidate("a"));
+			assertThrows(TimeoutException.class, () -> invalidate.get(100, TimeUnit.MILLISECONDS));
+			release.countDown();
+			invalidate.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+			// The value that was invalidated during its creation is disposed and replaced
+			assertEquals("a1", value.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+			assertEquals(Collections.singletonList("a0"), disposed);
+			assertEquals("a1", map.getValue("a"));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void closeDuringCreation() throws Exception
+	{
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			LazyFactoryMap<String, String> map = LazyFactoryMap.create(key ->
+			{
+				creating.countDown();
+				await(release);
+				return key;
+			}, (key, value) -> disposed.add(value), 10);
+			Future<String> value = executor.submit(() -> map.getValue("a"));
+			assertTrue(creating.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+			Future<?> close = executor.submit(map::close);
+
+			// close() waits for the value to be created
+			assertThrows(TimeoutException.class, () -> close.get(100, TimeUnit.MILLISECONDS));
+			release.countDown();
+			close.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+			Exception e = assertThrows(Exception.class,
+				() -> value.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+			assertInstanceOf(IllegalStateException.class, e.getCause());
+			assertEquals(Collections.singletonList("a"), disposed);
+			assertThrows(IllegalStateException.class, () -> map.getValue("a"));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waits for a latch to count down.
+	 *
+	 * @param latch the latch
+	 * @throws AssertionError if the test times out or the thread is interrupted
+	 */
+	private static void await(CountDownLatch latch)
+	{
+		try
+		{
+			if (!latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+				throw new AssertionError("Test timed out");
+		}
+		catch (InterruptedException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code PooledFactory} never holds more values than its maximum size.
+ */
+public final class TestPooledFactory
+{
+	private static final int MAXIMUM_SIZE = 4;
+	private static final int THREADS = 16;
+	private static final int LEASES_PER_THREAD = 2000;
+
+	@Test
+	public void concurrentLeases() throws Exception
+	{
+		assertLiveValuesBounded(Duration.ofHours(1));
+	}
+
+	@Test
+	public void concurrentLeasesDuringValidation() throws Exception
+	{
+		assertLiveValuesBounded(Duration.ofMillis(1));
+	}
+
+	/**
+	 * Leases values from many threads, ensuring that the number of values that exist at the same time never
+	 * exceeds the maximum size of the pool.
+	 *
+	 * @param validationInterval the amount of time between validations of idle values
+	 * @throws Exception if the test fails
+	 */
+	private void assertLiveValuesBounded(Duration validationInterval) throws Exception
+	{
+		AtomicInteger liveValues = new AtomicInteger();
+		AtomicInteger maximumLiveValues = new AtomicInteger();
+		AtomicInteger createdValues = new AtomicInteger();
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try (PooledFactory<Object> pool = PooledFactory.create(() ->
+			{
+				createdValues.incrementAndGet();
+				maximumLiveValues.accumulateAndGet(liveValues.incrementAndGet(), Math::max);
+				return new Object();
+			}, value -> liveValues.decrementAndGet(), value -> true, value ->
+			{
+			}, MAXIMUM_SIZE, Duration.ofMinutes(1), scheduler, validationInterval))
+		{
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>(THREADS);
+			for (int i = 0; i < THREADS; ++i)
+			{
+				futures.add(executor.submit(() ->
+				{
+					start.await();
+					for (int j = 0; j < LEASES_PER_THREAD; ++j)
+					{
+						Factory<Object> lease = pool.lease();
+						lease.getValue();
+						lease.close();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures)
+				future.get();
+		}
+		finally
+		{
+			executor.shutdown();
+			scheduler.shutdown();
+		}
+		assertTrue(maximumLiveValues.get() <= MAXIMUM_SIZE, "maximumLiveValues: " + maximumLiveValues.get());
+		if (validationInterval.compareTo(Duration.ofMinutes(1)) > 0)
+		{
+			// Idle values are only disposed during validation, so every value that was created is still live
+			assertTrue(createdValues.get() <= MAXIMUM_SIZE, "createdValues: " + createdValues.get());
+		}
+	}
+}
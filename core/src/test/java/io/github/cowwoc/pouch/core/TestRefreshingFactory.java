@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code RefreshingFactory} refreshes values and disposes superseded ones.
+ */
+public final class TestRefreshingFactory
+{
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+	private final AtomicInteger nextValue = new AtomicInteger(1);
+	private final List<Integer> disposed = new CopyOnWriteArrayList<>();
+	private HeldScheduler scheduler;
+
+	@BeforeEach
+	public void beforeEach()
+	{
+		scheduler = new HeldScheduler();
+	}
+
+	@AfterEach
+	public void afterEach()
+	{
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void refreshAheadServesCurrentValue() throws InterruptedException
+	{
+		RefreshingFactory<Integer> factory = RefreshingFactory.create(nextValue::getAndIncrement,
+			disposed::add, TIMEOUT, TIMEOUT.minusMillis(1), Duration.ZERO, scheduler);
+		assertEquals(1, factory.getValue());
+		// Wait for the value to enter its refresh-ahead window
+		Thread.sleep(10);
+		// The refresh starts in the background without blocking the caller
+		assertEquals(1, factory.getValue());
+		assertEquals(1, scheduler.held.size());
+		assertEquals(1, factory.getValue());
+		assertEquals(1, scheduler.held.size(), "only one refresh may run at a time");
+
+		scheduler.runHeld();
+		assertEquals(2, factory.getValue());
+		assertEquals(Collections.singletonList(1), disposed);
+		factory.close();
+		assertEquals(Arrays.asList(1, 2), disposed);
+	}
+
+	@Test
+	public void staleRefreshIsDisposed() throws InterruptedException
+	{
+		Duration timeToLive = Duration.ofMillis(200);
+		RefreshingFactory<Integer> factory = RefreshingFactory.create(nextValue::getAndIncrement,
+			disposed::add, timeToLive, timeToLive.minusMillis(1), Duration.ZERO, scheduler);
+		assertEquals(1, factory.getValue());
+		Thread.sleep(10);
+		assertEquals(1, factory.getValue());
+		assertEquals(1, scheduler.held.size());
+
+		// The value expires before the refresh runs, so a caller replaces it first
+		Thread.sleep(timeToLive.toMillis() * 2);
+		assertEquals(2, factory.getValue());
+		assertEquals(Collections.singletonList(1), disposed);
+
+		// The refresh of the first value must not replace, or dispose, the value that the caller received
+		scheduler.runHeld();
+		assertEquals(Arrays.asList(1, 3), disposed);
+		assertEquals(2, factory.getValue());
+		factory.close();
+	}
+
+	@Test
+	public void supersededValuesAreDisposedAfterGracePeriod() throws InterruptedException
+	{
+		Duration timeToLive = Duration.ofMillis(100);
+		Duration gracePeriod = Duration.ofMillis(300);
+		RefreshingFactory<Integer> factory = RefreshingFactory.create(nextValue::getAndIncrement,
+			disposed::add, timeToLive, Duration.ZERO, gracePeriod, scheduler);
+		assertEquals(1, factory.getValue());
+		Thread.sleep(timeToLive.toMillis() * 2);
+		long replacedAt = System.nanoTime();
+		assertEquals(2, factory.getValue());
+		assertEquals(Collections.emptyList(), disposed);
+
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (disposed.isEmpty() && System.nanoTime() - deadline < 0)
+			Thread.sleep(10);
+		assertEquals(Collections.singletonList(1), disposed);
+		assertTrue(System.nanoTime() - replacedAt >= gracePeriod.toNanos(),
+			"value was disposed before its grace period ended");
+		factory.close();
+		assertEquals(Arrays.asList(1, 2), disposed);
+	}
+
+	@Test
+	public void closeDisposesAllValues() throws InterruptedException
+	{
+		Duration timeToLive = Duration.ofMillis(100);
+		RefreshingFactory<Integer> factory = RefreshingFactory.create(nextValue::getAndIncrement,
+			disposed::add, timeToLive, Duration.ZERO, TIMEOUT, scheduler);
+		assertEquals(1, factory.getValue());
+		Thread.sleep(timeToLive.toMillis() * 2);
+		assertEquals(2, factory.getValue());
+		assertEquals(Collections.emptyList(), disposed);
+
+		factory.close();
+		List<Integer> sorted = new ArrayList<>(disposed);
+		Collections.sort(sorted);
+		assertEquals(Arrays.asList(1, 2), sorted);
+		assertThrows(IllegalStateException.class, factory::getValue);
+
+		// Subsequent invocations have no effect
+		factory.close();
+		assertEquals(2, disposed.size());
+	}
+
+	@Test
+	public void expiredValueIsCreatedOnce() throws Exception
+	{
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger created = new AtomicInteger();
+		RefreshingFactory<Integer> factory = RefreshingFactory.create(() ->
+		{
+			created.incrementAndGet();
+			creating.countDown();
+			try
+			{
+				if (!release.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+					throw new AssertionError("Test timed out");
+			}
+			catch (InterruptedException e)
+			{
+				throw new AssertionError(e);
+			}
+			return nextValue.getAndIncrement();
+		}, disposed::add, TIMEOUT, Duration.ZERO, Duration.ZERO, scheduler);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			Future<Integer> first = executor.submit(factory::getValue);
+			assertTrue(creating.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+			Future<Integer> second = executor.submit(factory::getValue);
+			// Give the second thread a chance to find the value being created
+			Thread.sleep(100);
+			release.countDown();
+			assertEquals(1, first.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+			assertEquals(1, second.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+			assertEquals(1, created.get());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		factory.close();
+	}
+
+	/**
+	 * A scheduler that holds onto tasks passed to {@code execute()} until {@link #runHeld()} is invoked.
+	 */
+	private static final class HeldScheduler extends ScheduledThreadPoolExecutor
+	{
+		final List<Runnable> held = new CopyOnWriteArrayList<>();
+
+		HeldScheduler()
+		{
+			super(1);
+		}
+
+		@Override
+		public void execute(Runnable command)
+		{
+			held.add(command);
+		}
+
+		/**
+		 * Runs the tasks that were held, in the current thread.
+		 */
+		void runHeld()
+		{
+			List<Runnable> tasks = new ArrayList<>(held);
+			held.clear();
+			for (Runnable task : tasks)
+				task.run();
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code ScopedExecutor} does not let tasks outlive their scope.
+ */
+public final class TestScopedExecutor
+{
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Test
+	public void closeWaitsForTasks() throws Exception
+	{
+		TestScope parent = new TestScope();
+		ScopedExecutor executor = new ScopedExecutor(parent, Thread::new, TIMEOUT);
+		assertEquals(1, parent.getChildCount());
+		AtomicReference<Scope> boundScope = new AtomicReference<>();
+		Future<String> future = executor.submit(() ->
+		{
+			Thread.sleep(100);
+			boundScope.set(CurrentScope.get());
+			return "done";
+		});
+		executor.close();
+
+		assertTrue(executor.isTerminated());
+		assertEquals("done", future.get(0, TimeUnit.MILLISECONDS));
+		assertSame(parent, boundScope.get());
+		assertEquals(0, parent.getChildCount());
+	}
+
+	@Test
+	public void closeInterruptsTasksAfterTimeout() throws Exception
+	{
+		TestScope parent = new TestScope();
+		ScopedExecutor executor = new ScopedExecutor(parent, Thread::new, Duration.ofMillis(100));
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch exited = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		Future<?> future = executor.submit(() ->
+		{
+			started.countDown();
+			try
+			{
+				Thread.sleep(TIMEOUT.toMillis());
+			}
+			catch (InterruptedException e)
+			{
+				interrupted.set(true);
+			}
+			finally
+			{
+				exited.countDown();
+			}
+		});
+		assertTrue(started.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+		executor.close();
+
+		assertTrue(future.isCancelled());
+		assertTrue(interrupted.get());
+		// close() waits for interrupted tasks to exit
+		assertEquals(0, exited.getCount());
+		assertTrue(executor.isTerminated());
+		assertEquals(0, parent.getChildCount());
+	}
+
+	@Test
+	public void closeReturnsIfTasksIgnoreInterrupts() throws InterruptedException
+	{
+		TestScope parent = new TestScope();
+		ScopedExecutor executor = new ScopedExecutor(parent, Thread::new, Duration.ofMillis(50));
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() ->
+		{
+			started.countDown();
+			while (true)
+			{
+				try
+				{
+					if (release.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+						return;
+				}
+				catch (InterruptedException e)
+				{
+					// Ignore the interrupt
+				}
+			}
+		});
+		assertTrue(started.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+		long start = System.nanoTime();
+		executor.close();
+		assertTrue(System.nanoTime() - start < TIMEOUT.toNanos(), "close() did not return");
+		assertFalse(executor.isTerminated());
+		assertEquals(0, parent.getChildCount());
+
+		release.countDown();
+		assertTrue(executor.awaitTermination(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void rejectsTasksAfterShutdown()
+	{
+		TestScope parent = new TestScope();
+		ScopedExecutor executor = new ScopedExecutor(parent, Thread::new, TIMEOUT);
+		executor.shutdown();
+		assertTrue(executor.isShutdown());
+		assertTrue(executor.isClosed());
+		assertThrows(RejectedExecutionException.class, () -> executor.execute(() ->
+		{
+		}));
+		assertThrows(IllegalStateException.class, () -> executor.addChild(new TestScope()));
+
+		executor.close();
+		assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "rejected"));
+	}
+
+	/**
+	 * A scope that keeps track of its children.
+	 */
+	private static final class TestScope extends AbstractScope
+	{
+		private volatile boolean closed;
+
+		/**
+		 * Returns the number of child scopes.
+		 *
+		 * @return the number of child scopes
+		 */
+		int getChildCount()
+		{
+			return children.size();
+		}
+
+		@Override
+		public boolean isClosed()
+		{
+			return closed;
+		}
+
+		@Override
+		public void close()
+		{
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that {@code TaskGraph} runs tasks after their dependencies and reports their failures.
+ */
+public final class TestTaskGraph
+{
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Test
+	public void dependenciesRunFirst()
+	{
+		List<String> events = new CopyOnWriteArrayList<>();
+		TaskGraph graph = new TaskGraph();
+		TaskGraph.Task first = graph.add(() ->
+		{
+			Thread.sleep(50);
+			events.add("first");
+		});
+		TaskGraph.Task second = graph.add(() -> events.add("second"), first);
+		graph.add(() -> events.add("third"), first, second);
+		graph.run(TIMEOUT);
+		assertEquals(Arrays.asList("first", "second", "third"), events);
+	}
+
+	@Test
+	public void independentTasksRunConcurrently()
+	{
+		CountDownLatch started = new CountDownLatch(2);
+		TaskGraph graph = new TaskGraph();
+		for (int i = 0; i < 2; ++i)
+		{
+			graph.add(() ->
+			{
+				started.countDown();
+				// Deadlocks unless both tasks run at the same time
+				if (!started.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+					throw new TimeoutException("Tasks did not run concurrently");
+			});
+		}
+		graph.run(TIMEOUT);
+	}
+
+	@Test
+	public void exceptionsAreReportedInOrder()
+	{
+		IOException firstException = new IOException("first");
+		IllegalStateException secondException = new IllegalStateException("second");
+		List<String> events = new CopyOnWriteArrayList<>();
+		TaskGraph graph = new TaskGraph();
+		TaskGraph.Task first = graph.add(() ->
+		{
+			throw firstException;
+		});
+		TaskGraph.Task second = graph.add(() ->
+		{
+			throw secondException;
+		}, first);
+		graph.add(() -> events.add("third"), second);
+
+		WrappedCheckedException e = assertThrows(WrappedCheckedException.class, () -> graph.run(TIMEOUT));
+		assertSame(firstException, e.getCause());
+		assertEquals(Arrays.asList(secondException), Arrays.asList(firstException.getSuppressed()));
+		assertEquals(Arrays.asList("third"), events);
+	}
+
+	@Test
+	public void errorsDoNotPreventDependents()
+	{
+		AssertionError error = new AssertionError("error");
+		List<String> events = new CopyOnWriteArrayList<>();
+		TaskGraph graph = new TaskGraph();
+		TaskGraph.Task first = graph.add(() ->
+		{
+			throw error;
+		});
+		graph.add(() -> events.add("second"), first);
+
+		AssertionError thrown = assertThrows(AssertionError.class, () -> graph.run(TIMEOUT));
+		assertSame(error, thrown);
+		assertEquals(Arrays.asList("second"), events);
+	}
+
+	@Test
+	public void timeoutInterruptsRunningTasks() throws InterruptedException
+	{
+		CountDownLatch interrupted = new CountDownLatch(1);
+		CountDownLatch dependentRan = new CountDownLatch(1);
+		TaskGraph graph = new TaskGraph();
+		TaskGraph.Task slow = graph.add(() ->
+		{
+			try
+			{
+				Thread.sleep(TIMEOUT.toMillis());
+			}
+			catch (InterruptedException e)
+			{
+				interrupted.countDown();
+			}
+		});
+		graph.add(dependentRan::countDown, slow);
+
+		WrappedCheckedException e = assertThrows(WrappedCheckedException.class,
+			() -> graph.run(Duration.ofMillis(100)));
+		assertInstanceOf(TimeoutException.class, e.getCause());
+		assertTrue(interrupted.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS),
+			"slow task was not interrupted");
+		// Tasks that did not start before the timeout still run once their dependencies finish
+		assertTrue(dependentRan.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS),
+			"dependent task did not run");
+	}
+
+	@Test
+	public void dependencyFromDifferentGraph()
+	{
+		TaskGraph other = new TaskGraph();
+		TaskGraph.Task foreign = other.add(() ->
+		{
+		});
+		assertThrows(IllegalArgumentException.class, () -> new TaskGraph().add(() ->
+		{
+		}, foreign));
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.dropwizard.application;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+
+/**
+ * Rejects requests that arrive while the server is draining with {@code 503 Service Unavailable}, before
+ * their request scope is injected.
+ */
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 100)
+final class DrainingFilter implements ContainerRequestFilter
+{
+	private final ServerScopeLifecycle serverScopeLifecycle;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param serverScopeLifecycle the lifecycle of the server scope
+	 * @throws NullPointerException if {@code serverScopeLifecycle} is null
+	 */
+	DrainingFilter(ServerScopeLifecycle serverScopeLifecycle)
+	{
+		if (serverScopeLifecycle == null)
+			throw new NullPointerException("serverScopeLifecycle may not be null");
+		this.serverScopeLifecycle = serverScopeLifecycle;
+	}
+
+	@Override
+	public void filter(ContainerRequestContext request)
+	{
+		// Load balancers retry the request on another server
+		if (serverScopeLifecycle.isDraining())
+			request.abortWith(Response.status(Status.SERVICE_UNAVAILABLE).build());
+	}
+}
@@ -7,6 +7,8 @@ package io.github.cowwoc.pouch.dropwizard.application;
 import io.dropwizard.core.Application;
 import io.dropwizard.core.Configuration;
 import io.dropwizard.core.setup.Environment;
+import io.github.cowwoc.pouch.core.Metrics;
+import io.github.cowwoc.pouch.dropwizard.metrics.DropwizardMetricsCollector;
 import io.github.cowwoc.pouch.dropwizard.resource.HelloWorldResource;
 import io.github.cowwoc.pouch.dropwizard.scope.MainPouchBinder;
 
@@ -36,7 +38,14 @@ public final class MainApplication extends Application<Configuration>
 	@Override
 	public void run(Configuration configuration, Environment environment)
 	{
+		Metrics.setCollector(new DropwizardMetricsCollector(environment.metrics()));
 		environment.jersey().register(MainPouchBinder.class);
 		environment.jersey().register(HelloWorldResource.class);
+
+		ServerScopeLifecycle serverScopeLifecycle = new ServerScopeLifecycle();
+		environment.jersey().register(serverScopeLifecycle);
+		environment.lifecycle().addEventListener(serverScopeLifecycle);
+		environment.healthChecks().register("server", serverScopeLifecycle);
+		environment.jersey().register(new DrainingFilter(serverScopeLifecycle));
 	}
 }
\ No newline at end of file
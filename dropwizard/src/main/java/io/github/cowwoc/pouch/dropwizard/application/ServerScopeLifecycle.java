@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.dropwizard.application;
+
+import com.codahale.metrics.health.HealthCheck;
+import io.github.cowwoc.pouch.dropwizard.scope.ServerScope;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+/**
+ * Drains the server scope once Jetty begins to stop, while its connectors still accept requests, and reports
+ * the server as unhealthy while it drains so that load balancers stop routing requests to it.
+ */
+final class ServerScopeLifecycle extends HealthCheck
+	implements ContainerLifecycleListener, LifeCycle.Listener
+{
+	/**
+	 * The server scope; {@code null} if Jersey did not start yet.
+	 */
+	private volatile ServerScope serverScope;
+
+	/**
+	 * Creates a new instance.
+	 */
+	ServerScopeLifecycle()
+	{
+	}
+
+	@Override
+	public void onStartup(Container container)
+	{
+		serverScope = container.getApplicationHandler().getInjectionManager().getInstance(ServerScope.class);
+	}
+
+	@Override
+	public void onReload(Container container)
+	{
+	}
+
+	@Override
+	public void onShutdown(Container container)
+	{
+	}
+
+	@Override
+	public void lifeCycleStopping(LifeCycle event)
+	{
+		ServerScope theServerScope = serverScope;
+		if (theServerScope == null)
+			return;
+		// New requests are rejected with "503 Service Unavailable" while open requests complete
+		theServerScope.drain(theServerScope.getScopeCloseTimeout());
+	}
+
+	/**
+	 * Indicates if the server is draining.
+	 *
+	 * @return {@code true} if the server stopped accepting new requests
+	 */
+	boolean isDraining()
+	{
+		ServerScope theServerScope = serverScope;
+		return theServerScope != null && theServerScope.isDraining();
+	}
+
+	@Override
+	protected Result check()
+	{
+		if (serverScope == null)
+			return Result.unhealthy("Server is starting");
+		if (isDraining())
+			return Result.unhealthy("Server is draining");
+		return Result.healthy();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.dropwizard.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.github.cowwoc.pouch.core.Bulkhead;
+import io.github.cowwoc.pouch.core.MetricsCollector;
+import io.github.cowwoc.pouch.core.Reference;
+import io.github.cowwoc.pouch.core.Scope;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports Pouch measurements to a Dropwizard {@code MetricRegistry}.
+ * <p>
+ * Metrics are named after the class of the scope, the {@link Reference#getMetricsName() name} of the
+ * reference, or the name of the bulkhead being measured:
+ * <ul>
+ *   <li>{@code <scope class>.live}: the number of child scopes that are open.</li>
+ *   <li>{@code <scope class>.leaked}: the rate at which leaked child scopes are forcibly closed.</li>
+ *   <li>{@code <reference name>.creation}: the time it takes to create values.</li>
+ *   <li>{@code <reference name>.creation-failures}: the rate at which values fail to be created.</li>
+ *   <li>{@code <bulkhead name>.queue-depth}: the number of waiting callers, sampled as callers join.</li>
+ *   <li>{@code <bulkhead name>.admission-wait}: the time that admitted callers waited.</li>
+ *   <li>{@code <bulkhead name>.rejected}: the rate at which callers are rejected.</li>
+ * </ul>
+ */
+public final class DropwizardMetricsCollector implements MetricsCollector
+{
+	private final MetricRegistry registry;
+	private final ClassValue<Counter> liveScopes = new ClassValue<>()
+	{
+		@Override
+		protected Counter computeValue(Class<?> type)
+		{
+			return registry.counter(MetricRegistry.name(type, "live"));
+		}
+	};
+	private final ClassValue<Meter> leakedScopes = new ClassValue<>()
+	{
+		@Override
+		protected Meter computeValue(Class<?> type)
+		{
+			return registry.meter(MetricRegistry.name(type, "leaked"));
+		}
+	};
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param registry the registry to report to
+	 * @throws NullPointerException if {@code registry} is null
+	 */
+	public DropwizardMetricsCollector(MetricRegistry registry)
+	{
+		if (registry == null)
+			throw new NullPointerException("registry may not be null");
+		this.registry = registry;
+	}
+
+	@Override
+	public void childAdded(Scope parent, Scope child)
+	{
+		liveScopes.get(child.getClass()).inc();
+	}
+
+	@Override
+	public void childRemoved(Scope parent, Scope child)
+	{
+		liveScopes.get(child.getClass()).dec();
+	}
+
+	@Override
+	public void leakedChildClosed(Scope child)
+	{
+		leakedScopes.get(child.getClass()).mark();
+	}
+
+	@Override
+	public void valueCreated(Reference<?> reference, long nanos)
+	{
+		Timer timer = registry.timer(MetricRegistry.name(reference.getMetricsName(), "creation"));
+		timer.update(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void valueCreationFailed(Reference<?> reference, long nanos)
+	{
+		registry.meter(MetricRegistry.name(reference.getMetricsName(), "creation-failures")).mark();
+	}
+
+	@Override
+	public void queued(Bulkhead bulkhead, int queueDepth)
+	{
+		Histogram histogram = registry.histogram(MetricRegistry.name(bulkhead.getName(), "queue-depth"));
+		histogram.update(queueDepth);
+	}
+
+	@Override
+	public void admitted(Bulkhead bulkhead, long nanos)
+	{
+		Timer timer = registry.timer(MetricRegistry.name(bulkhead.getName(), "admission-wait"));
+		timer.update(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void rejected(Bulkhead bulkhead, long nanos)
+	{
+		registry.meter(MetricRegistry.name(bulkhead.getName(), "rejected")).mark();
+	}
+}
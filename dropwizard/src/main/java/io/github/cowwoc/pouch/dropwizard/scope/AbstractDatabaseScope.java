@@ -1,7 +1,11 @@
 package io.github.cowwoc.pouch.dropwizard.scope;
 
 import io.github.cowwoc.pouch.core.AbstractScope;
+import io.github.cowwoc.pouch.core.Bulkhead;
+import io.github.cowwoc.pouch.core.Factory;
+import io.github.cowwoc.pouch.core.LazyFactory;
 import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.StripedChildScopes;
 import io.github.cowwoc.pouch.core.WrappedCheckedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +15,7 @@ import java.sql.SQLException;
 import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -19,6 +24,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public abstract class AbstractDatabaseScope extends AbstractScope
 	implements DatabaseScope
 {
+	private static final String CONNECTION_METRICS_NAME = AbstractDatabaseScope.class.getName() +
+		".connection";
 	/**
 	 * The parent scope.
 	 */
@@ -27,6 +34,14 @@ public abstract class AbstractDatabaseScope extends AbstractScope
 	 * {@code true} if the scope was closed.
 	 */
 	protected final AtomicBoolean closed = new AtomicBoolean();
+	/**
+	 * Limits the number of open transactions; {@code null} if the number of transactions is unlimited.
+	 */
+	private final Bulkhead admission;
+	/**
+	 * The maximum amount of time that {@link #createTransactionScope()} waits for a transaction to be admitted.
+	 */
+	private final Duration admissionTimeout;
 
 	/**
 	 * Creates a new instance.
@@ -36,10 +51,36 @@ public abstract class AbstractDatabaseScope extends AbstractScope
 	 */
 	protected AbstractDatabaseScope(JvmScope parent)
 	{
+		this(parent, null, Duration.ZERO);
+	}
+
+	/**
+	 * Creates a new instance that limits the number of open transactions.
+	 *
+	 * @param parent           the parent scope
+	 * @param admission        limits the number of open transactions; {@code null} if the number of
+	 *                         transactions is unlimited
+	 * @param admissionTimeout the maximum amount of time that {@link #createTransactionScope()} waits for a
+	 *                         transaction to be admitted
+	 * @throws NullPointerException     if {@code parent} or {@code admissionTimeout} are null
+	 * @throws IllegalArgumentException if {@code admissionTimeout} is negative
+	 */
+	protected AbstractDatabaseScope(JvmScope parent, Bulkhead admission, Duration admissionTimeout)
+	{
+		// Transaction scopes are opened and closed concurrently by many threads
+		super(new StripedChildScopes());
 		if (parent == null)
 			throw new NullPointerException("parent may not be null");
+		if (admissionTimeout == null)
+			throw new NullPointerException("admissionTimeout may not be null");
+		if (admissionTimeout.isNegative())
+			throw new IllegalArgumentException("admissionTimeout may not be negative.\n" +
+				"Actual: " + admissionTimeout);
 		this.parent = parent;
+		this.admission = admission;
+		this.admissionTimeout = admissionTimeout;
 		parent.getScheduler().scheduleWithFixedDelay(new CheckDatabase(), 5, 60, TimeUnit.SECONDS);
+		parent.addChild(this);
 	}
 
 	@Override
@@ -54,6 +95,12 @@ public abstract class AbstractDatabaseScope extends AbstractScope
 		return parent.getMode();
 	}
 
+	@Override
+	public SchedulerMode getSchedulerMode()
+	{
+		return parent.getSchedulerMode();
+	}
+
 	@Override
 	public ScheduledExecutorService getScheduler()
 	{
@@ -74,12 +121,84 @@ public abstract class AbstractDatabaseScope extends AbstractScope
 		}
 	}
 
+	/**
+	 * Returns a factory that acquires a new connection from {@link #getDataSource()} and closes it when the
+	 * factory is closed. Subclasses may override this method to reuse connections.
+	 */
+	@Override
+	public Factory<Connection> leaseConnection()
+	{
+		ensureOpen();
+		return new LazyFactory<>()
+		{
+			@Override
+			protected Connection createValue()
+			{
+				return getConnection();
+			}
+
+			@Override
+			protected void disposeValue(Connection value)
+			{
+				try
+				{
+					value.close();
+				}
+				catch (SQLException e)
+				{
+					throw WrappedCheckedException.wrap(e);
+				}
+			}
+
+			@Override
+			public String getMetricsName()
+			{
+				return CONNECTION_METRICS_NAME;
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws WrappedCheckedException if the maximum number of transactions are open, and the transaction was
+	 *                                 not admitted before the admission timeout elapsed or the wait queue is
+	 *                                 full ({@code TimeoutException}), or if the thread is interrupted while
+	 *                                 waiting ({@code InterruptedException})
+	 */
 	@Override
 	public TransactionScope createTransactionScope()
 	{
+		TransactionScope transaction = tryCreateTransactionScope(admissionTimeout);
+		if (transaction == null)
+		{
+			throw WrappedCheckedException.wrap(new TimeoutException("Transaction was not admitted within " +
+				admissionTimeout + ".\n" +
+				"Admission: " + admission));
+		}
+		return transaction;
+	}
+
+	@Override
+	public TransactionScope tryCreateTransactionScope(Duration timeout)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
 		if (isClosed())
 			throw new IllegalStateException("Scope is closed");
-		return new DefaultTransactionScope(this);
+		if (admission == null)
+			return new DefaultTransactionScope(this);
+		if (!admission.tryAcquire(timeout))
+			return null;
+		try
+		{
+			return new DefaultTransactionScope(this, admission);
+		}
+		catch (RuntimeException | Error e)
+		{
+			admission.release();
+			throw e;
+		}
 	}
 
 	@Override
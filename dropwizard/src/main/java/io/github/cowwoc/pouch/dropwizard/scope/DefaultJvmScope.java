@@ -8,13 +8,15 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.github.cowwoc.pouch.core.AbstractScope;
 import io.github.cowwoc.pouch.core.ConcurrentLazyFactory;
 import io.github.cowwoc.pouch.core.Factory;
-import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.OffloadingScheduler;
+import io.github.cowwoc.pouch.core.TaskGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -39,10 +41,20 @@ public final class DefaultJvmScope extends AbstractScope
 		@Override
 		protected ScheduledExecutorService createValue()
 		{
-			ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1,
-				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("scheduler-%d").build());
-			result.setMaximumPoolSize(1);
-			return result;
+			ThreadFactory timerThreadFactory = new ThreadFactoryBuilder().setDaemon(true).
+				setNameFormat("scheduler-%d").build();
+			return switch (schedulerMode)
+			{
+				case SINGLE_THREAD ->
+				{
+					ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, timerThreadFactory);
+					result.setMaximumPoolSize(1);
+					yield result;
+				}
+				// The timer thread only fires triggers, so a blocking task cannot delay the others
+				case VIRTUAL_THREADS -> new OffloadingScheduler(timerThreadFactory,
+					Thread.ofVirtual().name("scheduled-task-", 0).factory());
+			};
 		}
 
 		@Override
@@ -61,19 +73,36 @@ public final class DefaultJvmScope extends AbstractScope
 		}
 	};
 	private final RunMode mode;
+	private final SchedulerMode schedulerMode;
 	private final Logger log = LoggerFactory.getLogger(DefaultJvmScope.class);
 
 	/**
-	 * Creates a new scope.
+	 * Creates a new scope that runs scheduled tasks on virtual threads.
 	 *
 	 * @param mode the runtime mode of the JVM
 	 * @throws NullPointerException if {@code mode} is null
 	 */
 	public DefaultJvmScope(RunMode mode)
+	{
+		this(mode, SchedulerMode.VIRTUAL_THREADS);
+	}
+
+	/**
+	 * Creates a new scope.
+	 *
+	 * @param mode          the runtime mode of the JVM
+	 * @param schedulerMode the threads that run scheduled tasks
+	 * @throws NullPointerException if any of the arguments are null
+	 */
+	public DefaultJvmScope(RunMode mode, SchedulerMode schedulerMode)
 	{
 		if (mode == null)
 			throw new NullPointerException("mode may not be null");
+		if (schedulerMode == null)
+			throw new NullPointerException("schedulerMode may not be null");
 		this.mode = mode;
+		this.schedulerMode = schedulerMode;
+		registerForWarmUp(schedulerFactory);
 	}
 
 	@Override
@@ -88,6 +117,13 @@ public final class DefaultJvmScope extends AbstractScope
 		return schedulerFactory.getValue();
 	}
 
+	@Override
+	public SchedulerMode getSchedulerMode()
+	{
+		ensureOpen();
+		return schedulerMode;
+	}
+
 	@Override
 	public Duration getScopeCloseTimeout()
 	{
@@ -105,6 +141,12 @@ public final class DefaultJvmScope extends AbstractScope
 	{
 		if (!closed.compareAndSet(false, true))
 			return;
-		Scopes.runAll(() -> children.shutdown(CLOSE_TIMEOUT), schedulerFactory::close);
+		// Child scopes may schedule tasks while they shut down, so the scheduler must outlive them. The
+		// deadline bounds the entire shutdown, even if closing a leaked child scope hangs. In that case, the
+		// scheduler is closed once the child scopes finish closing.
+		TaskGraph graph = new TaskGraph();
+		TaskGraph.Task closeChildren = graph.add(() -> children.shutdown(CLOSE_TIMEOUT));
+		graph.add(schedulerFactory::close, closeChildren);
+		graph.run(CLOSE_TIMEOUT.multipliedBy(2), Thread.ofVirtual().name("jvm-scope-close-", 0).factory());
 	}
 }
\ No newline at end of file
@@ -5,15 +5,17 @@
 package io.github.cowwoc.pouch.dropwizard.scope;
 
 import io.github.cowwoc.pouch.core.AbstractScope;
+import io.github.cowwoc.pouch.core.Bulkhead;
 import io.github.cowwoc.pouch.core.Factory;
-import io.github.cowwoc.pouch.core.LazyFactory;
 import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TransactionScope common to main and test codebases.
@@ -22,34 +24,19 @@ public final class DefaultTransactionScope extends AbstractScope
 	implements TransactionScope
 {
 	private final DatabaseScope parent;
-	private final Factory<Connection> connection = LazyFactory.create(() ->
-	{
-		DataSource ds = getDataSource();
-		try
-		{
-			return ds.getConnection();
-		}
-		catch (SQLException e)
-		{
-			throw new RuntimeException(e);
-		}
-	}, theConnection ->
-	{
-		try
-		{
-			// Any uncommitted changes should be rolled back before returning a connection to the pool.
-			// @see http://stackoverflow.com/a/9644783/14731
-			try (theConnection)
-			{
-				if (!theConnection.getAutoCommit() && !theConnection.isClosed())
-					theConnection.rollback();
-			}
-		}
-		catch (SQLException e)
-		{
-			throw new RuntimeException(e);
-		}
-	});
+	private final Factory<Connection> connection;
+	/**
+	 * The bulkhead that admitted the transaction; {@code null} if the number of transactions is unlimited.
+	 */
+	private final Bulkhead admission;
+	/**
+	 * The callbacks that run once the transaction commits or rolls back.
+	 */
+	private final TransactionCallbacks callbacks = new TransactionCallbacks();
+	/**
+	 * The number of nested transactions that are in progress.
+	 */
+	private final AtomicInteger nestedTransactions = new AtomicInteger();
 	private boolean closed;
 
 	/**
@@ -59,10 +46,25 @@ public final class DefaultTransactionScope extends AbstractScope
 	 * @throws NullPointerException if {@code parent} is null
 	 */
 	public DefaultTransactionScope(DatabaseScope parent)
+	{
+		this(parent, null);
+	}
+
+	/**
+	 * Creates a new transaction scope.
+	 *
+	 * @param parent    the parent scope
+	 * @param admission the bulkhead that admitted the transaction, released when the scope closes;
+	 *                  {@code null} if the number of transactions is unlimited
+	 * @throws NullPointerException if {@code parent} is null
+	 */
+	DefaultTransactionScope(DatabaseScope parent, Bulkhead admission)
 	{
 		if (parent == null)
 			throw new NullPointerException("parent may not be null");
 		this.parent = parent;
+		this.admission = admission;
+		this.connection = parent.leaseConnection();
 		parent.addChild(this);
 	}
 
@@ -78,6 +80,12 @@ public final class DefaultTransactionScope extends AbstractScope
 		return parent.getMode();
 	}
 
+	@Override
+	public SchedulerMode getSchedulerMode()
+	{
+		return parent.getSchedulerMode();
+	}
+
 	@Override
 	public ScheduledExecutorService getScheduler()
 	{
@@ -90,18 +98,85 @@ public final class DefaultTransactionScope extends AbstractScope
 		return parent.createTransactionScope();
 	}
 
+	@Override
+	public TransactionScope tryCreateTransactionScope(Duration timeout)
+	{
+		return parent.tryCreateTransactionScope(timeout);
+	}
+
+	@Override
+	public TransactionScope createNestedScope()
+	{
+		return new NestedTransactionScope(this, nestedTransactions);
+	}
+
 	@Override
 	public Connection getConnection()
 	{
 		return connection.getValue();
 	}
 
+	@Override
+	public Factory<Connection> leaseConnection()
+	{
+		return parent.leaseConnection();
+	}
+
 	@Override
 	public Duration getScopeCloseTimeout()
 	{
 		return parent.getScopeCloseTimeout();
 	}
 
+	@Override
+	public void commit()
+	{
+		ensureOpen();
+		NestedTransactionScope.ensureCompleted(nestedTransactions);
+		if (connection.isInitialized())
+		{
+			Connection theConnection = connection.getValue();
+			try
+			{
+				if (!theConnection.getAutoCommit())
+					theConnection.commit();
+			}
+			catch (SQLException e)
+			{
+				throw WrappedCheckedException.wrap(e);
+			}
+		}
+		callbacks.committed(getScheduler());
+	}
+
+	@Override
+	public void onCommit(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onCommit(callback, false);
+	}
+
+	@Override
+	public void onCommitAsync(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onCommit(callback, true);
+	}
+
+	@Override
+	public void onRollback(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onRollback(callback, false);
+	}
+
+	@Override
+	public void onRollbackAsync(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onRollback(callback, true);
+	}
+
 	@Override
 	public boolean isClosed()
 	{
@@ -114,6 +189,40 @@ public final class DefaultTransactionScope extends AbstractScope
 		if (closed)
 			return;
 		closed = true;
-		Scopes.runAll(connection::close, () -> parent.removeChild(this));
+		// Nested transactions roll back before the connection is released, and the connection is released
+		// before the next transaction is admitted
+		Scopes.runAll(() -> children.shutdown(getScopeCloseTimeout()), this::rollback,
+			() -> callbacks.rolledBack(getScheduler()), connection::close, this::releaseAdmission,
+			() -> parent.removeChild(this));
+	}
+
+	/**
+	 * Lets the next transaction in.
+	 */
+	private void releaseAdmission()
+	{
+		if (admission != null)
+			admission.release();
+	}
+
+	/**
+	 * Rolls back any uncommitted changes before the connection is released.
+	 *
+	 * @see <a href="http://stackoverflow.com/a/9644783/14731">http://stackoverflow.com/a/9644783/14731</a>
+	 */
+	private void rollback()
+	{
+		if (!connection.isInitialized())
+			return;
+		Connection theConnection = connection.getValue();
+		try
+		{
+			if (!theConnection.isClosed() && !theConnection.getAutoCommit())
+				theConnection.rollback();
+		}
+		catch (SQLException e)
+		{
+			throw WrappedCheckedException.wrap(e);
+		}
 	}
 }
\ No newline at end of file
@@ -38,6 +38,14 @@ public interface JvmScope extends Scope
 	 */
 	ScheduledExecutorService getScheduler();
 
+	/**
+	 * Returns the threads that run the tasks of {@link #getScheduler()}.
+	 *
+	 * @return the scheduler mode
+	 * @throws IllegalStateException if the scope is closed
+	 */
+	SchedulerMode getSchedulerMode();
+
 	/**
 	 * Returns the amount of time to wait for scopes to close.
 	 *
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.dropwizard.scope;
+
+import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
+import io.github.cowwoc.pouch.core.WrappedCheckedException.CheckedRunnable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The callbacks that run once a transaction commits or rolls back.
+ * <p>
+ * The implementation is thread-safe. Callbacks run without holding the lock, so they may register callbacks
+ * for the next transaction.
+ */
+final class TransactionCallbacks
+{
+	private static final CheckedRunnable[] EMPTY = new CheckedRunnable[0];
+	/**
+	 * Guarded by {@code this}.
+	 */
+	private List<Runnable> onCommit = new ArrayList<>();
+	/**
+	 * Guarded by {@code this}.
+	 */
+	private List<Runnable> onCommitAsync = new ArrayList<>();
+	/**
+	 * Guarded by {@code this}.
+	 */
+	private List<Runnable> onRollback = new ArrayList<>();
+	/**
+	 * Guarded by {@code this}.
+	 */
+	private List<Runnable> onRollbackAsync = new ArrayList<>();
+	private final Logger log = LoggerFactory.getLogger(TransactionCallbacks.class);
+
+	/**
+	 * Creates a new instance.
+	 */
+	TransactionCallbacks()
+	{
+	}
+
+	/**
+	 * Adds a callback that runs after the transaction commits.
+	 *
+	 * @param callback the callback
+	 * @param async    {@code true} if the callback runs on an executor, {@code false} if it runs on the thread
+	 *                 that commits the transaction
+	 * @throws NullPointerException if {@code callback} is null
+	 */
+	synchronized void onCommit(Runnable callback, boolean async)
+	{
+		if (callback == null)
+			throw new NullPointerException("callback may not be null");
+		if (async)
+			onCommitAsync.add(callback);
+		else
+			onCommit.add(callback);
+	}
+
+	/**
+	 * Adds a callback that runs after the transaction rolls back.
+	 *
+	 * @param callback the callback
+	 * @param async    {@code true} if the callback runs on an executor, {@code false} if it runs on the thread
+	 *                 that rolls back the transaction
+	 * @throws NullPointerException if {@code callback} is null
+	 */
+	synchronized void onRollback(Runnable callback, boolean async)
+	{
+		if (callback == null)
+			throw new NullPointerException("callback may not be null");
+		if (async)
+			onRollbackAsync.add(callback);
+		else
+			onRollback.add(callback);
+	}
+
+	/**
+	 * Runs the commit callbacks and discards the rollback callbacks.
+	 *
+	 * @param executor runs the asynchronous callbacks
+	 * @throws WrappedCheckedException if any of the synchronous callbacks threw an exception
+	 */
+	void committed(Executor executor)
+	{
+		List<Runnable> callbacks;
+		List<Runnable> asyncCallbacks;
+		synchronized (this)
+		{
+			callbacks = onCommit;
+			asyncCallbacks = onCommitAsync;
+			clear();
+		}
+		run(callbacks, asyncCallbacks, executor);
+	}
+
+	/**
+	 * Runs the rollback callbacks and discards the commit callbacks.
+	 *
+	 * @param executor runs the asynchronous callbacks
+	 * @throws WrappedCheckedException if any of the synchronous callbacks threw an exception
+	 */
+	void rolledBack(Executor executor)
+	{
+		List<Runnable> callbacks;
+		List<Runnable> asyncCallbacks;
+		synchronized (this)
+		{
+			callbacks = onRollback;
+			asyncCallbacks = onRollbackAsync;
+			clear();
+		}
+		run(callbacks, asyncCallbacks, executor);
+	}
+
+	/**
+	 * Moves the callbacks to an enclosing transaction, whose outcome determines which of them run.
+	 *
+	 * @param parent the enclosing transaction
+	 */
+	void transferTo(TransactionScope parent)
+	{
+		List<Runnable> commitCallbacks;
+		List<Runnable> asyncCommitCallbacks;
+		List<Runnable> rollbackCallbacks;
+		List<Runnable> asyncRollbackCallbacks;
+		synchronized (this)
+		{
+			commitCallbacks = onCommit;
+			asyncCommitCallbacks = onCommitAsync;
+			rollbackCallbacks = onRollback;
+			asyncRollbackCallbacks = onRollbackAsync;
+			clear();
+		}
+		// The parent's callbacks are updated without holding this object's lock, to avoid lock-ordering
+		// deadlocks
+		for (Runnable callback : commitCallbacks)
+			parent.onCommit(callback);
+		for (Runnable callback : asyncCommitCallbacks)
+			parent.onCommitAsync(callback);
+		for (Runnable callback : rollbackCallbacks)
+			parent.onRollback(callback);
+		for (Runnable callback : asyncRollbackCallbacks)
+			parent.onRollbackAsync(callback);
+	}
+
+	/**
+	 * Discards all callbacks. Callbacks may register new callbacks for the next transaction while they run,
+	 * so the lists are replaced instead of being cleared. The caller must hold {@code this}.
+	 */
+	private void clear()
+	{
+		if (!onCommit.isEmpty())
+			onCommit = new ArrayList<>();
+		if (!onCommitAsync.isEmpty())
+			onCommitAsync = new ArrayList<>();
+		if (!onRollback.isEmpty())
+			onRollback = new ArrayList<>();
+		if (!onRollbackAsync.isEmpty())
+			onRollbackAsync = new ArrayList<>();
+	}
+
+	/**
+	 * Runs callbacks. The synchronous callbacks run first, and the asynchronous callbacks are submitted even
+	 * if a synchronous callback fails.
+	 *
+	 * @param callbacks      the callbacks to run on the current thread
+	 * @param asyncCallbacks the callbacks to run on {@code executor}
+	 * @param executor       runs the asynchronous callbacks
+	 * @throws WrappedCheckedException if any of the synchronous callbacks threw an exception
+	 */
+	private void run(List<Runnable> callbacks, List<Runnable> asyncCallbacks, Executor executor)
+	{
+		try
+		{
+			if (!callbacks.isEmpty())
+				Scopes.runAll(toTasks(callbacks));
+		}
+		finally
+		{
+			for (Runnable callback : asyncCallbacks)
+				submit(callback, executor);
+		}
+	}
+
+	/**
+	 * Runs an asynchronous callback. Nobody waits for the callback, so its failure is logged.
+	 *
+	 * @param callback the callback
+	 * @param executor runs the callback
+	 */
+	private void submit(Runnable callback, Executor executor)
+	{
+		try
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					callback.run();
+				}
+				catch (RuntimeException | Error e)
+				{
+					log.error("A transaction callback failed", e);
+				}
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			// The scheduler is shutting down
+			log.error("A transaction callback was rejected: {}", callback, e);
+		}
+	}
+
+	/**
+	 * Converts callbacks to tasks.
+	 *
+	 * @param callbacks the callbacks
+	 * @return the tasks
+	 */
+	private static CheckedRunnable[] toTasks(List<Runnable> callbacks)
+	{
+		List<CheckedRunnable> tasks = new ArrayList<>(callbacks.size());
+		for (Runnable callback : callbacks)
+			tasks.add(callback::run);
+		return tasks.toArray(EMPTY);
+	}
+}
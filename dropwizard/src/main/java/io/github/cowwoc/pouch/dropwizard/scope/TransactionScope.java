@@ -4,6 +4,8 @@
  */
 package io.github.cowwoc.pouch.dropwizard.scope;
 
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
+
 import java.sql.Connection;
 
 /**
@@ -17,4 +19,74 @@ public interface TransactionScope extends DatabaseScope
 	 * @return the database connection associated with the transaction
 	 */
 	Connection getConnection();
+
+	/**
+	 * Commits the transaction. Changes that are not committed are rolled back when the scope closes.
+	 *
+	 * @throws IllegalStateException   if {@link #isClosed()}, or if a {@link #createNestedScope() nested
+	 *                                 transaction} is in progress
+	 * @throws WrappedCheckedException if the transaction could not be committed ({@code SQLException}), or if
+	 *                                 a {@link #onCommit(Runnable) commit callback} threw an exception
+	 */
+	void commit();
+
+	/**
+	 * Returns a new transaction that runs on this transaction's connection instead of acquiring a new one.
+	 * If this transaction is in progress, the nested transaction sets a savepoint and rolls back to it when it
+	 * closes without committing. Nested transactions must be committed or closed before this transaction
+	 * commits.
+	 *
+	 * @return a new transaction scope
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 * @see NestedTransactionScope
+	 */
+	TransactionScope createNestedScope();
+
+	/**
+	 * Adds a callback that runs on the current thread after the transaction commits, such as invalidating a
+	 * cache once its data is durable. Callbacks run in the order that they were added. If a callback throws
+	 * an exception, the remaining callbacks still run and {@link #commit()} throws the exceptions once they
+	 * finish.
+	 * <p>
+	 * If a nested transaction commits while its enclosing transaction is in progress, its callbacks run once
+	 * the enclosing transaction commits.
+	 *
+	 * @param callback the callback
+	 * @throws NullPointerException  if {@code callback} is null
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 */
+	void onCommit(Runnable callback);
+
+	/**
+	 * Adds a callback that runs on {@link #getScheduler()} after the transaction commits, such as publishing
+	 * events. Exceptions thrown by the callback are logged.
+	 *
+	 * @param callback the callback
+	 * @throws NullPointerException  if {@code callback} is null
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 * @see #onCommit(Runnable)
+	 */
+	void onCommitAsync(Runnable callback);
+
+	/**
+	 * Adds a callback that runs on the current thread if the scope closes without committing the transaction.
+	 * Callbacks run in the order that they were added. If a callback throws an exception, the remaining
+	 * callbacks still run and {@link #close()} throws the exceptions once they finish.
+	 *
+	 * @param callback the callback
+	 * @throws NullPointerException  if {@code callback} is null
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 */
+	void onRollback(Runnable callback);
+
+	/**
+	 * Adds a callback that runs on {@link #getScheduler()} if the scope closes without committing the
+	 * transaction. Exceptions thrown by the callback are logged.
+	 *
+	 * @param callback the callback
+	 * @throws NullPointerException  if {@code callback} is null
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 * @see #onRollback(Runnable)
+	 */
+	void onRollbackAsync(Runnable callback);
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ module io.github.cowwoc.pouch.dropwizard
 	requires java.sql;
 	requires java.naming;
 	requires org.slf4j;
+	requires jakarta.annotation;
 	requires jakarta.inject;
 	requires jakarta.ws.rs;
 	requires io.github.cowwoc.pouch.core;
@@ -13,8 +14,13 @@ module io.github.cowwoc.pouch.dropwizard
 	requires com.google.common;
 	requires com.h2database;
 	requires jersey.common;
+	requires jersey.server;
 	requires io.dropwizard.core;
 	requires io.dropwizard.jersey;
+	requires io.dropwizard.lifecycle;
+	requires com.codahale.metrics;
+	requires com.codahale.metrics.health;
+	requires org.eclipse.jetty.util;
 
 	exports io.github.cowwoc.pouch.dropwizard.application;
 	exports io.github.cowwoc.pouch.dropwizard.resource;
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.dropwizard.application;
+
+import io.dropwizard.client.JerseyClientBuilder;
+import io.dropwizard.core.Configuration;
+import io.dropwizard.testing.DropwizardTestSupport;
+import io.github.cowwoc.pouch.core.Metrics;
+import io.github.cowwoc.pouch.core.MetricsCollector;
+import io.github.cowwoc.pouch.dropwizard.scope.ServerScope;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that a draining server rejects new requests and reports itself as unhealthy.
+ */
+public final class TestServerScopeLifecycle
+{
+	private static final DropwizardTestSupport<Configuration> DROPWIZARD = new DropwizardTestSupport<>(
+		MainApplication.class, "target/classes/main.yml");
+
+	@BeforeAll
+	public static void beforeClass() throws Exception
+	{
+		DROPWIZARD.before();
+	}
+
+	@AfterAll
+	public static void afterClass()
+	{
+		try
+		{
+			DROPWIZARD.after();
+		}
+		finally
+		{
+			// Avoid reporting the metrics of subsequent tests to the stopped application
+			Metrics.setCollector(MetricsCollector.NO_OP);
+		}
+	}
+
+	@Test
+	public void drain()
+	{
+		Client client = new JerseyClientBuilder(DROPWIZARD.getEnvironment()).build("drain client");
+		WebTarget target = client.target(String.format("http://localhost:%d/helloworld",
+			DROPWIZARD.getLocalPort()));
+		try (Response response = target.request().get())
+		{
+			assertEquals(Status.OK.getStatusCode(), response.getStatus());
+		}
+		assertTrue(DROPWIZARD.getEnvironment().healthChecks().runHealthCheck("server").isHealthy());
+
+		ServletContainer container = (ServletContainer) DROPWIZARD.getEnvironment().getJerseyServletContainer();
+		ServerScope serverScope = container.getApplicationHandler().getInjectionManager().
+			getInstance(ServerScope.class);
+		assertTrue(serverScope.drain(serverScope.getScopeCloseTimeout()));
+		// Subsequent invocations, such as the one that runs when the application stops, have no effect
+		assertFalse(serverScope.drain(serverScope.getScopeCloseTimeout()));
+
+		try (Response response = target.request().get())
+		{
+			assertEquals(Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+		}
+		assertFalse(DROPWIZARD.getEnvironment().healthChecks().runHealthCheck("server").isHealthy());
+	}
+}
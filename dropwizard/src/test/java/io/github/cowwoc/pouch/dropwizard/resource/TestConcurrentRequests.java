@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.dropwizard.resource;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.client.JerseyClientBuilder;
+import io.dropwizard.core.Configuration;
+import io.dropwizard.testing.DropwizardTestSupport;
+import io.github.cowwoc.pouch.core.Metrics;
+import io.github.cowwoc.pouch.core.MetricsCollector;
+import io.github.cowwoc.pouch.core.OffloadingScheduler;
+import io.github.cowwoc.pouch.core.OffloadingScheduler.ScheduledTask;
+import io.github.cowwoc.pouch.dropwizard.application.MainApplication;
+import io.github.cowwoc.pouch.dropwizard.scope.JvmScope;
+import io.github.cowwoc.pouch.dropwizard.scope.MainDatabaseScope;
+import io.github.cowwoc.pouch.dropwizard.scope.MainServerScope;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.WebTarget;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ensures that concurrent requests share the same database and server scopes, and that the database health
+ * check is scheduled once.
+ */
+public final class TestConcurrentRequests
+{
+	private static final int REQUESTS = 100;
+	private static final int THREADS = 16;
+	private static final DropwizardTestSupport<Configuration> DROPWIZARD = new DropwizardTestSupport<>(
+		MainApplication.class, "target/classes/main.yml");
+
+	@BeforeAll
+	public static void beforeClass() throws Exception
+	{
+		DROPWIZARD.before();
+	}
+
+	@AfterAll
+	public static void afterClass()
+	{
+		try
+		{
+			DROPWIZARD.after();
+		}
+		finally
+		{
+			// MainApplication reports metrics to its registry
+			Metrics.setCollector(MetricsCollector.NO_OP);
+		}
+	}
+
+	@Test
+	public void oneDatabaseScope() throws Exception
+	{
+		Client client = new JerseyClientBuilder(DROPWIZARD.getEnvironment()).build("concurrent client");
+		WebTarget target = client.target(String.format("http://localhost:%d/helloworld",
+			DROPWIZARD.getLocalPort()));
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try
+		{
+			List<Future<String>> responses = new ArrayList<>(REQUESTS);
+			for (int i = 0; i < REQUESTS; ++i)
+				responses.add(executor.submit(() -> target.request().get(String.class)));
+			for (Future<String> response : responses)
+				response.get();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		// Scopes register with their parent when they are constructed, and none of them are closed until the
+		// application stops, so the number of live scopes is the number of scopes that were constructed.
+		MetricRegistry metrics = DROPWIZARD.getEnvironment().metrics();
+		assertEquals(1, metrics.counter(MetricRegistry.name(MainDatabaseScope.class, "live")).getCount());
+		assertEquals(1, metrics.counter(MetricRegistry.name(MainServerScope.class, "live")).getCount());
+
+		// Each database scope schedules a health check
+		ServletContainer container = (ServletContainer) DROPWIZARD.getEnvironment().getJerseyServletContainer();
+		JvmScope jvmScope = container.getApplicationHandler().getInjectionManager().getInstance(JvmScope.class);
+		OffloadingScheduler scheduler = (OffloadingScheduler) jvmScope.getScheduler();
+		long healthChecks = 0;
+		for (ScheduledTask<?> task : scheduler.getTasks())
+		{
+			if (task.toString().contains("CheckDatabase"))
+				++healthChecks;
+		}
+		assertEquals(1, healthChecks, "tasks: " + scheduler.getTasks());
+	}
+}
@@ -34,6 +34,74 @@ public final class TestPouchBinder extends AbstractBinder
 		}
 	}
 
+	/**
+	 * Binds a DatabaseScope.
+	 */
+	private static class DatabaseScopeFactory implements Factory<DatabaseScope>
+	{
+		private final JvmScope jvmScope;
+
+		/**
+		 * Creates a new DatabaseScopeFactory.
+		 *
+		 * @param jvmScope the JVM configuration
+		 * @throws NullPointerException if {@code jvmScope} is null
+		 */
+		@Inject
+		DatabaseScopeFactory(JvmScope jvmScope)
+		{
+			if (jvmScope == null)
+				throw new NullPointerException("jvmScope may not be null");
+			this.jvmScope = jvmScope;
+		}
+
+		@Override
+		public DatabaseScope provide()
+		{
+			return new TestDatabaseScope(jvmScope);
+		}
+
+		@Override
+		public void dispose(DatabaseScope instance)
+		{
+			instance.close();
+		}
+	}
+
+	/**
+	 * Binds a ServerScope.
+	 */
+	private static class ServerScopeFactory implements Factory<ServerScope>
+	{
+		private final DatabaseScope databaseScope;
+
+		/**
+		 * Creates a new ServerScopeFactory.
+		 *
+		 * @param databaseScope the database configuration
+		 * @throws NullPointerException if {@code databaseScope} is null
+		 */
+		@Inject
+		ServerScopeFactory(DatabaseScope databaseScope)
+		{
+			if (databaseScope == null)
+				throw new NullPointerException("databaseScope may not be null");
+			this.databaseScope = databaseScope;
+		}
+
+		@Override
+		public ServerScope provide()
+		{
+			return new TestServerScope(databaseScope);
+		}
+
+		@Override
+		public void dispose(ServerScope instance)
+		{
+			instance.close();
+		}
+	}
+
 	/**
 	 * Binds an HttpScope.
 	 */
@@ -45,19 +113,18 @@ public final class TestPouchBinder extends AbstractBinder
 		/**
 		 * Creates a new HttpScopeFactory.
 		 *
-		 * @param jvmScope       the JVM configuration
+		 * @param serverScope    the server configuration
 		 * @param serviceLocator the Jersey dependency-injection mechanism
 		 * @throws NullPointerException if any of the arguments are null
 		 */
 		@Inject
-		HttpScopeFactory(JvmScope jvmScope, ServiceLocator serviceLocator)
+		HttpScopeFactory(ServerScope serverScope, ServiceLocator serviceLocator)
 		{
-			if (jvmScope == null)
-				throw new NullPointerException("jvmScope may not be null");
+			if (serverScope == null)
+				throw new NullPointerException("serverScope may not be null");
 			if (serviceLocator == null)
 				throw new NullPointerException("serviceLocator may not be null");
-			DatabaseScope databaseScope = new TestDatabaseScope(jvmScope);
-			this.serverScope = new TestServerScope(databaseScope);
+			this.serverScope = serverScope;
 			this.serviceLocator = serviceLocator;
 		}
 
@@ -78,6 +145,8 @@ public final class TestPouchBinder extends AbstractBinder
 	protected void configure()
 	{
 		bindFactory(JvmScopeFactory.class).to(JvmScope.class).in(Singleton.class);
+		bindFactory(DatabaseScopeFactory.class).to(DatabaseScope.class).in(Singleton.class);
+		bindFactory(ServerScopeFactory.class).to(ServerScope.class).in(Singleton.class);
 		bindFactory(HttpScopeFactory.class).to(RequestScope.class).in(RequestScoped.class);
 	}
 }
\ No newline at end of file
@@ -4,9 +4,12 @@
  */
 package io.github.cowwoc.pouch.jersey.application;
 
+import io.github.cowwoc.pouch.jersey.scope.ServerScope;
 import jakarta.ws.rs.core.UriBuilder;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.glassfish.jersey.jetty.JettyHttpContainer;
 import org.glassfish.jersey.jetty.JettyHttpContainerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
@@ -30,6 +33,21 @@ public class Main
 
 		URI baseUri = UriBuilder.fromUri("http://localhost/").port(8080).build();
 		Server server = JettyHttpContainerFactory.createServer(baseUri, new MainApplication());
+		JettyHttpContainer container = (JettyHttpContainer) server.getHandler();
+		server.addEventListener(new LifeCycle.Listener()
+		{
+			@Override
+			public void lifeCycleStopping(LifeCycle event)
+			{
+				// Drains the server while its connector still accepts requests. New requests are rejected with
+				// "503 Service Unavailable" while open requests complete.
+				ServerScope serverScope = container.getApplicationHandler().getInjectionManager().
+					getInstance(ServerScope.class);
+				serverScope.drain(serverScope.getScopeCloseTimeout());
+			}
+		});
+		// Stops the server gracefully when the JVM receives SIGTERM
+		server.setStopAtShutdown(true);
 
 		try
 		{
@@ -5,7 +5,9 @@
 package io.github.cowwoc.pouch.jersey.application;
 
 import io.github.cowwoc.pouch.jersey.resource.HelloWorldResource;
+import io.github.cowwoc.pouch.jersey.resource.ReadinessResource;
 import io.github.cowwoc.pouch.jersey.scope.MainPouchBinder;
+import io.github.cowwoc.pouch.jersey.scope.RequestScopeFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 
 /**
@@ -19,6 +21,8 @@ public final class MainApplication extends ResourceConfig
 	public MainApplication()
 	{
 		register(MainPouchBinder.class);
+		register(RequestScopeFeature.class);
 		register(HelloWorldResource.class);
+		register(ReadinessResource.class);
 	}
 }
\ No newline at end of file
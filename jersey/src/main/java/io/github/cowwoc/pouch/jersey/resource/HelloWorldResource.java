@@ -5,10 +5,10 @@
 package io.github.cowwoc.pouch.jersey.resource;
 
 import io.github.cowwoc.pouch.jersey.scope.RequestScope;
-import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
 
 /**
  * A resource that returns Hello World.
@@ -16,33 +16,25 @@ import jakarta.ws.rs.Produces;
 @Path("helloworld")
 public final class HelloWorldResource
 {
-	private final RequestScope scope;
-
 	/**
 	 * Creates a new resource.
-	 *
-	 * @param request values and variables that are specific to the lifetime of the current HTTP request
-	 * @throws NullPointerException if {@code request} is null
 	 */
-	@Inject
-	public HelloWorldResource(RequestScope request)
+	public HelloWorldResource()
 	{
-		if (request == null)
-			throw new NullPointerException("scope may not be null");
-		this.scope = request;
 	}
 
 	/**
 	 * Returns the state of this resource.
 	 *
+	 * @param scope values and variables that are specific to the lifetime of the current HTTP request
 	 * @return the state
 	 */
 	@GET
 	@Produces("text/plain")
-	public String getHello()
+	public String getHello(@Context RequestScope scope)
 	{
 		return "Hello world!\n" +
 			"HTTP-scoped value: " + scope.getRequestedUri() + "\n" +
 			"JVM-scoped value : " + scope.getMode();
 	}
-}
\ No newline at end of file
+}
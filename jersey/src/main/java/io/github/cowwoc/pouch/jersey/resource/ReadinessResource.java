@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.jersey.resource;
+
+import io.github.cowwoc.pouch.jersey.scope.ServerScope;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+
+/**
+ * Tells load balancers whether the server accepts new requests.
+ */
+@Path("ready")
+public final class ReadinessResource
+{
+	private final ServerScope serverScope;
+
+	/**
+	 * Creates a new resource.
+	 *
+	 * @param serverScope the server configuration
+	 * @throws NullPointerException if {@code serverScope} is null
+	 */
+	@Inject
+	public ReadinessResource(ServerScope serverScope)
+	{
+		if (serverScope == null)
+			throw new NullPointerException("serverScope may not be null");
+		this.serverScope = serverScope;
+	}
+
+	/**
+	 * Returns the readiness of the server.
+	 *
+	 * @return {@code 204 No Content} if the server accepts new requests, or {@code 503 Service Unavailable} if
+	 * 	it is draining
+	 */
+	@GET
+	public Response isReady()
+	{
+		if (serverScope.isDraining())
+			return Response.status(Status.SERVICE_UNAVAILABLE).build();
+		return Response.noContent().build();
+	}
+}
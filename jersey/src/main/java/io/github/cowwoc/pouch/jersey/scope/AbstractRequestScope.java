@@ -5,6 +5,13 @@
 package io.github.cowwoc.pouch.jersey.scope;
 
 import io.github.cowwoc.pouch.core.AbstractScope;
+import io.github.cowwoc.pouch.core.ConcurrentLazyFactory;
+import io.github.cowwoc.pouch.core.ConcurrentLazyReference;
+import io.github.cowwoc.pouch.core.Factory;
+import io.github.cowwoc.pouch.core.Reference;
+import io.github.cowwoc.pouch.core.ScopedExecutor;
+import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
 import jakarta.ws.rs.core.UriInfo;
 import org.glassfish.hk2.api.ServiceLocator;
 
@@ -12,7 +19,12 @@ import javax.sql.DataSource;
 import java.net.URI;
 import java.sql.Connection;
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * HttpScope common to main and test codebases.
@@ -20,9 +32,61 @@ import java.util.concurrent.ScheduledExecutorService;
 abstract class AbstractRequestScope extends AbstractScope
 	implements RequestScope
 {
+	private static final String EXECUTOR_METRICS_NAME = AbstractRequestScope.class.getName() + ".executor";
+	private static final String REQUESTED_URI_METRICS_NAME = AbstractRequestScope.class.getName() +
+		".requestedUri";
 	private final ServerScope parent;
 	private final ServiceLocator serviceLocator;
-	private boolean closed;
+	/**
+	 * Subtasks may request the executor concurrently with the request thread.
+	 */
+	private final ConcurrentLazyFactory<ScopedExecutor> executor = new ConcurrentLazyFactory<>()
+	{
+		@Override
+		protected ScopedExecutor createValue()
+		{
+			return new ScopedExecutor(AbstractRequestScope.this, Thread.ofVirtual().name("request-task-", 0).
+				factory(), getScopeCloseTimeout());
+		}
+
+		@Override
+		protected void disposeValue(ScopedExecutor value)
+		{
+			value.close();
+		}
+
+		@Override
+		public String getMetricsName()
+		{
+			return EXECUTOR_METRICS_NAME;
+		}
+	};
+	private final Reference<URI> requestedUri = memoize(REQUESTED_URI_METRICS_NAME,
+		() -> lookup(UriInfo.class).getRequestUri());
+	/**
+	 * The transaction that holds the connection that the request and its nested transactions share;
+	 * {@code null} if the request did not access the database yet. The transaction is admitted by the
+	 * database scope, so requests are subject to the same limit on open transactions as other callers. It
+	 * holds its admission until the request closes. Updates are guarded by {@code transactionLock}.
+	 */
+	private volatile TransactionScope transaction;
+	/**
+	 * Serializes the creation of {@code transaction}. Unlike a monitor, the lock does not pin virtual threads
+	 * while the database admits the transaction.
+	 */
+	private final ReentrantLock transactionLock = new ReentrantLock();
+	/**
+	 * The callbacks that run once the transaction commits or rolls back.
+	 */
+	private final TransactionCallbacks callbacks = new TransactionCallbacks();
+	/**
+	 * The number of nested transactions that are in progress.
+	 */
+	private final AtomicInteger nestedTransactions = new AtomicInteger();
+	/**
+	 * {@code true} if the scope was closed.
+	 */
+	private final AtomicBoolean closed = new AtomicBoolean();
 
 	/**
 	 * Creates a new HTTP scope.
@@ -39,6 +103,7 @@ abstract class AbstractRequestScope extends AbstractScope
 			throw new NullPointerException("serviceLocator may not be null");
 		this.parent = parent;
 		this.serviceLocator = serviceLocator;
+		parent.addChild(this);
 	}
 
 	/**
@@ -51,6 +116,55 @@ abstract class AbstractRequestScope extends AbstractScope
 		return serviceLocator;
 	}
 
+	/**
+	 * Returns a reference that computes a request-scoped value the first time that it is requested, and
+	 * returns the same value for the rest of the request. Accessors that are invoked many times per request
+	 * should store their value in such a reference.
+	 *
+	 * @param <T>      the type of the value
+	 * @param name     the name that the reference's measurements are reported under. Use a constant, such as
+	 *                 the name of the scope class followed by the name of the value, to avoid allocating a
+	 *                 name for each request.
+	 * @param supplier computes the value
+	 * @return the reference
+	 * @throws NullPointerException if any of the arguments are null
+	 */
+	protected final <T> Reference<T> memoize(String name, Supplier<T> supplier)
+	{
+		if (name == null)
+			throw new NullPointerException("name may not be null");
+		if (supplier == null)
+			throw new NullPointerException("supplier may not be null");
+		// Subtasks may access the value concurrently with the request thread
+		return new ConcurrentLazyReference<>()
+		{
+			@Override
+			protected T createValue()
+			{
+				return supplier.get();
+			}
+
+			@Override
+			public String getMetricsName()
+			{
+				return name;
+			}
+		};
+	}
+
+	/**
+	 * Looks up a service from the Jersey dependency-injection mechanism. Each lookup resolves the service
+	 * anew, so accessors should {@link #memoize(String, Supplier) memoize} the result.
+	 *
+	 * @param <T>  the type of the service
+	 * @param type the type of the service
+	 * @return the service
+	 */
+	protected <T> T lookup(Class<T> type)
+	{
+		return serviceLocator.getService(type);
+	}
+
 	@Override
 	public Duration getScopeCloseTimeout()
 	{
@@ -63,10 +177,61 @@ abstract class AbstractRequestScope extends AbstractScope
 		return parent.getDataSource();
 	}
 
+	/**
+	 * Returns the connection of the request. The connection is acquired the first time that this method is
+	 * invoked, and released when the request closes. The caller may not close it.
+	 * <p>
+	 * The request's transaction holds its admission until the request closes, so the database's limit on open
+	 * transactions also limits the number of requests that access the database at the same time.
+	 *
+	 * @return the database connection associated with the request
+	 * @throws IllegalStateException   if {@link #isClosed()}
+	 * @throws WrappedCheckedException if the database did not admit the request's transaction in time
+	 *                                 ({@code TimeoutException})
+	 * @see DatabaseScope#createTransactionScope()
+	 */
 	@Override
 	public Connection getConnection()
 	{
-		return parent.getConnection();
+		ensureOpen();
+		return bindTransaction(parent::createTransactionScope).getConnection();
+	}
+
+	/**
+	 * Returns the transaction that holds the request's connection, creating it if necessary. Threads that
+	 * request the transaction while it is being created wait for it.
+	 *
+	 * @param supplier creates the transaction; returns {@code null} if the transaction was not admitted
+	 * @return {@code null} if the transaction was not admitted
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 */
+	private TransactionScope bindTransaction(Supplier<TransactionScope> supplier)
+	{
+		TransactionScope result = transaction;
+		if (result != null)
+			return result;
+		transactionLock.lock();
+		try
+		{
+			result = transaction;
+			if (result != null)
+				return result;
+			// close() releases the transaction while holding the lock, so later transactions would leak
+			ensureOpen();
+			result = supplier.get();
+			transaction = result;
+			return result;
+		}
+		finally
+		{
+			transactionLock.unlock();
+		}
+	}
+
+	@Override
+	public Factory<Connection> leaseConnection()
+	{
+		return parent.leaseConnection();
 	}
 
 	@Override
@@ -75,37 +240,144 @@ abstract class AbstractRequestScope extends AbstractScope
 		return parent.getMode();
 	}
 
+	@Override
+	public SchedulerMode getSchedulerMode()
+	{
+		return parent.getSchedulerMode();
+	}
+
 	@Override
 	public ScheduledExecutorService getScheduler()
 	{
 		return parent.getScheduler();
 	}
 
+	/**
+	 * Returns a new transaction that runs on the request's connection, using a savepoint if the request's
+	 * transaction is in progress.
+	 *
+	 * @return a new transaction scope
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 * @see NestedTransactionScope
+	 */
 	@Override
 	public TransactionScope createTransactionScope()
 	{
-		return parent.createTransactionScope();
+		return createNestedScope();
+	}
+
+	@Override
+	public TransactionScope createNestedScope()
+	{
+		return new NestedTransactionScope(this, nestedTransactions);
+	}
+
+	/**
+	 * Returns a new transaction that runs on the request's connection. If the request does not hold a
+	 * connection yet, the database must admit the request's transaction within {@code timeout}.
+	 *
+	 * @param timeout the maximum amount of time to wait for the transaction to be admitted
+	 * @return {@code null} if the request's transaction was not admitted in time
+	 * @throws NullPointerException    if {@code timeout} is null
+	 * @throws IllegalStateException   if {@link #isClosed()}
+	 * @throws WrappedCheckedException if the thread is interrupted while waiting
+	 */
+	@Override
+	public TransactionScope tryCreateTransactionScope(Duration timeout)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		ensureOpen();
+		if (bindTransaction(() -> parent.tryCreateTransactionScope(timeout)) == null)
+			return null;
+		return createNestedScope();
+	}
+
+	@Override
+	public void commit()
+	{
+		ensureOpen();
+		NestedTransactionScope.ensureCompleted(nestedTransactions);
+		TransactionScope theTransaction = transaction;
+		if (theTransaction != null)
+			theTransaction.commit();
+		callbacks.committed(getScheduler());
+	}
+
+	@Override
+	public void onCommit(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onCommit(callback, false);
+	}
+
+	@Override
+	public void onCommitAsync(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onCommit(callback, true);
+	}
+
+	@Override
+	public void onRollback(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onRollback(callback, false);
+	}
+
+	@Override
+	public void onRollbackAsync(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onRollback(callback, true);
 	}
 
 	@Override
 	public URI getRequestedUri()
 	{
-		UriInfo uriInfo = serviceLocator.getService(UriInfo.class);
-		return uriInfo.getRequestUri();
+		return requestedUri.getValue();
+	}
+
+	@Override
+	public ExecutorService getExecutor()
+	{
+		ensureOpen();
+		return executor.getValue();
 	}
 
 	@Override
 	public boolean isClosed()
 	{
-		return closed;
+		return closed.get();
 	}
 
 	@Override
 	public void close()
 	{
-		if (closed)
+		if (!closed.compareAndSet(false, true))
 			return;
-		closed = true;
-		parent.removeChild(this);
+		// Nested transactions roll back before the request's transaction rolls back and releases the connection
+		Scopes.runAll(executor::close, () -> children.shutdown(getScopeCloseTimeout()), this::closeTransaction,
+			() -> callbacks.rolledBack(getScheduler()), () -> parent.removeChild(this));
+	}
+
+	/**
+	 * Rolls back any uncommitted changes, releases the connection and lets the next transaction in.
+	 */
+	private void closeTransaction()
+	{
+		TransactionScope theTransaction;
+		// Wait for a transaction that is being created
+		transactionLock.lock();
+		try
+		{
+			theTransaction = transaction;
+		}
+		finally
+		{
+			transactionLock.unlock();
+		}
+		if (theTransaction != null)
+			theTransaction.close();
 	}
-}
\ No newline at end of file
+}
@@ -1,8 +1,14 @@
 package io.github.cowwoc.pouch.jersey.scope;
 
 import io.github.cowwoc.pouch.core.AbstractScope;
+import io.github.cowwoc.pouch.core.Factory;
+import io.github.cowwoc.pouch.core.Scope;
 import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.StripedChildScopes;
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
 import org.glassfish.hk2.api.ServiceLocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -16,11 +22,25 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public abstract class AbstractServerScope extends AbstractScope
 	implements ServerScope
 {
+	/**
+	 * The amount of time between reports of the number of open requests while draining.
+	 */
+	private static final Duration DRAIN_REPORT_INTERVAL = Duration.ofSeconds(1);
 	private final DatabaseScope parent;
 	/**
 	 * {@code true} if the scope was closed.
 	 */
 	protected final AtomicBoolean closed = new AtomicBoolean();
+	/**
+	 * {@code true} if the server no longer accepts new requests.
+	 */
+	private final AtomicBoolean draining = new AtomicBoolean();
+	/**
+	 * {@code true} if open requests were already given time to complete, so {@link #close()} closes them
+	 * immediately.
+	 */
+	private volatile boolean drained;
+	private final Logger log = LoggerFactory.getLogger(AbstractServerScope.class);
 
 	/**
 	 * Creates a new instance.
@@ -30,6 +50,8 @@ public abstract class AbstractServerScope extends AbstractScope
 	 */
 	protected AbstractServerScope(DatabaseScope databaseScope)
 	{
+		// Request scopes are opened and closed concurrently by many threads
+		super(new StripedChildScopes());
 		if (databaseScope == null)
 			throw new NullPointerException("databaseScope may not be null");
 		this.parent = databaseScope;
@@ -49,6 +71,12 @@ public abstract class AbstractServerScope extends AbstractScope
 		return parent.getMode();
 	}
 
+	@Override
+	public SchedulerMode getSchedulerMode()
+	{
+		return parent.getSchedulerMode();
+	}
+
 	@Override
 	public ScheduledExecutorService getScheduler()
 	{
@@ -67,6 +95,12 @@ public abstract class AbstractServerScope extends AbstractScope
 		return parent.getConnection();
 	}
 
+	@Override
+	public Factory<Connection> leaseConnection()
+	{
+		return parent.leaseConnection();
+	}
+
 	@Override
 	public RequestScope createRequest(ServiceLocator serviceLocator)
 	{
@@ -81,6 +115,84 @@ public abstract class AbstractServerScope extends AbstractScope
 		return parent.createTransactionScope();
 	}
 
+	@Override
+	public TransactionScope tryCreateTransactionScope(Duration timeout)
+	{
+		return parent.tryCreateTransactionScope(timeout);
+	}
+
+	@Override
+	public void addChild(Scope child)
+	{
+		// Request scopes register themselves with the server, so this rejects new requests regardless of how
+		// subclasses create them
+		if (draining.get())
+			throw new IllegalStateException("Server is draining");
+		super.addChild(child);
+	}
+
+	@Override
+	public boolean isDraining()
+	{
+		return draining.get();
+	}
+
+	@Override
+	public boolean drain(Duration timeout)
+	{
+		if (timeout == null)
+			throw new NullPointerException("timeout may not be null");
+		if (!draining.compareAndSet(false, true))
+		{
+			// The server is already draining or closed
+			return false;
+		}
+		try
+		{
+			return awaitRequests(timeout);
+		}
+		finally
+		{
+			drained = true;
+			close();
+		}
+	}
+
+	/**
+	 * Waits for open requests to complete, logging their number periodically.
+	 *
+	 * @param timeout the maximum amount of time to wait
+	 * @return {@code true} if all requests completed; {@code false} if a timeout occurred
+	 * @throws WrappedCheckedException if the thread is interrupted while waiting
+	 */
+	private boolean awaitRequests(Duration timeout)
+	{
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (true)
+		{
+			int openRequests = children.size();
+			if (openRequests == 0)
+				return true;
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0)
+			{
+				log.warn("{} requests did not complete within {}. Closing them.", openRequests, timeout);
+				return false;
+			}
+			log.info("Draining server: {} requests are open", openRequests);
+			Duration untilNextReport = Duration.ofNanos(Math.min(remaining, DRAIN_REPORT_INTERVAL.toNanos()));
+			try
+			{
+				if (children.awaitEmpty(untilNextReport))
+					return true;
+			}
+			catch (InterruptedException e)
+			{
+				throw WrappedCheckedException.wrap(e);
+			}
+		}
+	}
+
 	@Override
 	public boolean isClosed()
 	{
@@ -90,6 +202,12 @@ public abstract class AbstractServerScope extends AbstractScope
 	@Override
 	public void close()
 	{
-		Scopes.runAll(() -> children.shutdown(getScopeCloseTimeout()), () -> parent.removeChild(this));
+		draining.set(true);
+		Duration timeout;
+		if (drained)
+			timeout = Duration.ZERO;
+		else
+			timeout = getScopeCloseTimeout();
+		Scopes.runAll(() -> children.shutdown(timeout), () -> parent.removeChild(this));
 	}
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package io.github.cowwoc.pouch.jersey.scope;
 
+import io.github.cowwoc.pouch.core.Factory;
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
+
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.time.Duration;
 
 /**
  * Database configuration.
@@ -24,6 +28,15 @@ public interface DatabaseScope extends JvmScope
 	 */
 	Connection getConnection();
 
+	/**
+	 * Returns a factory that acquires a database connection the first time that its value is requested, and
+	 * releases the connection when the factory is closed.
+	 *
+	 * @return a database connection factory
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 */
+	Factory<Connection> leaseConnection();
+
 	/**
 	 * Returns a new transaction scope.
 	 *
@@ -31,4 +44,18 @@ public interface DatabaseScope extends JvmScope
 	 * @throws IllegalStateException if {@link #isClosed()}
 	 */
 	TransactionScope createTransactionScope();
+
+	/**
+	 * Returns a new transaction scope if one can be admitted within a timeout. Unlike
+	 * {@link #createTransactionScope()}, this method returns {@code null} instead of waiting when the database
+	 * is overloaded.
+	 *
+	 * @param timeout the maximum amount of time to wait for the transaction to be admitted
+	 * @return {@code null} if the maximum number of transactions are open, and the transaction was not
+	 *         admitted before the timeout elapsed or the wait queue is full
+	 * @throws NullPointerException    if {@code timeout} is null
+	 * @throws IllegalStateException   if {@link #isClosed()}
+	 * @throws WrappedCheckedException if the thread is interrupted while waiting
+	 */
+	TransactionScope tryCreateTransactionScope(Duration timeout);
 }
\ No newline at end of file
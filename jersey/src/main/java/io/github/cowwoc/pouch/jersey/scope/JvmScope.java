@@ -39,4 +39,12 @@ public interface JvmScope extends Scope
 	 * @throws IllegalStateException if the scope is closed
 	 */
 	ScheduledExecutorService getScheduler();
+
+	/**
+	 * Returns the threads that run the tasks of {@link #getScheduler()}.
+	 *
+	 * @return the scheduler mode
+	 * @throws IllegalStateException if the scope is closed
+	 */
+	SchedulerMode getSchedulerMode();
 }
\ No newline at end of file
@@ -1,23 +1,49 @@
 package io.github.cowwoc.pouch.jersey.scope;
 
-import io.github.cowwoc.pouch.core.LazyReference;
-import io.github.cowwoc.pouch.core.Reference;
+import io.github.cowwoc.pouch.core.AsyncLazyReference;
+import io.github.cowwoc.pouch.core.Bulkhead;
+import io.github.cowwoc.pouch.core.Factory;
+import io.github.cowwoc.pouch.core.PooledFactory;
+import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
 import org.h2.jdbcx.JdbcDataSource;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 
 /**
  * The database scope used by the application.
  */
 public final class MainDatabaseScope extends AbstractDatabaseScope
 {
-	private final Reference<DataSource> dataSource = LazyReference.create(() ->
-	{
-		JdbcDataSource result = new JdbcDataSource();
-		result.setUrl("jdbc:h2:mem:main");
-		result.setUser("sa");
-		return result;
-	});
+	/**
+	 * The maximum number of connections that may be in use at the same time.
+	 */
+	private static final int MAXIMUM_CONNECTIONS = 10;
+	/**
+	 * The maximum amount of time to wait for a connection to become available.
+	 */
+	private static final Duration ACQUIRE_TIMEOUT = Duration.ofSeconds(30);
+	/**
+	 * The amount of time between validations of idle connections.
+	 */
+	private static final Duration VALIDATION_INTERVAL = Duration.ofSeconds(30);
+	/**
+	 * The number of seconds to wait for an idle connection to respond to validation.
+	 */
+	private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+	/**
+	 * The maximum number of transactions that may wait for another transaction to close.
+	 */
+	private static final int MAXIMUM_QUEUED_TRANSACTIONS = 100;
+	private final AsyncLazyReference<DataSource> dataSource;
+	private final PooledFactory<Connection> connections;
+	/**
+	 * The transaction isolation level of new connections.
+	 */
+	private volatile int defaultIsolation;
 
 	/**
 	 * Creates a new instance.
@@ -27,7 +53,96 @@ public final class MainDatabaseScope extends AbstractDatabaseScope
 	 */
 	public MainDatabaseScope(JvmScope jvmScope)
 	{
-		super(jvmScope);
+		// Each transaction holds a connection, so transactions beyond the size of the pool wait in a queue
+		// instead of timing out on the pool
+		super(jvmScope, new Bulkhead(MainDatabaseScope.class.getName() + ".transactions", MAXIMUM_CONNECTIONS,
+			MAXIMUM_QUEUED_TRANSACTIONS), ACQUIRE_TIMEOUT);
+		// Connection pools are expensive to create, so creation begins before the first request needs it
+		this.dataSource = registerForWarmUp(AsyncLazyReference.create(() ->
+		{
+			JdbcDataSource result = new JdbcDataSource();
+			result.setUrl("jdbc:h2:mem:main");
+			result.setUser("sa");
+			return result;
+		}, jvmScope.getScheduler()));
+		dataSource.start();
+		this.connections = PooledFactory.create(this::createConnection, connection ->
+		{
+			try
+			{
+				connection.close();
+			}
+			catch (SQLException e)
+			{
+				throw WrappedCheckedException.wrap(e);
+			}
+		}, connection ->
+		{
+			try
+			{
+				return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+			}
+			catch (SQLException e)
+			{
+				return false;
+			}
+		}, this::resetConnection, MAXIMUM_CONNECTIONS, ACQUIRE_TIMEOUT, jvmScope.getScheduler(), VALIDATION_INTERVAL);
+	}
+
+	/**
+	 * Returns a new connection for the pool, recording its default settings.
+	 *
+	 * @return a new connection
+	 * @throws WrappedCheckedException if the connection could not be created ({@code SQLException})
+	 */
+	private Connection createConnection()
+	{
+		Connection connection = getConnection();
+		try
+		{
+			defaultIsolation = connection.getTransactionIsolation();
+		}
+		catch (SQLException e)
+		{
+			try
+			{
+				connection.close();
+			}
+			catch (SQLException suppressed)
+			{
+				e.addSuppressed(suppressed);
+			}
+			throw WrappedCheckedException.wrap(e);
+		}
+		return connection;
+	}
+
+	/**
+	 * Restores the default settings of a connection before the pool hands it to the next lease. Otherwise, a
+	 * lease could receive a connection with auto-commit mode disabled and mistake it for a transaction in
+	 * progress.
+	 *
+	 * @param connection the connection
+	 * @throws WrappedCheckedException if the connection could not be reset ({@code SQLException})
+	 */
+	private void resetConnection(Connection connection)
+	{
+		try
+		{
+			if (!connection.getAutoCommit())
+			{
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			if (connection.isReadOnly())
+				connection.setReadOnly(false);
+			if (connection.getTransactionIsolation() != defaultIsolation)
+				connection.setTransactionIsolation(defaultIsolation);
+		}
+		catch (SQLException e)
+		{
+			throw WrappedCheckedException.wrap(e);
+		}
 	}
 
 	@Override
@@ -36,11 +151,19 @@ public final class MainDatabaseScope extends AbstractDatabaseScope
 		return dataSource.getValue();
 	}
 
+	@Override
+	public Factory<Connection> leaseConnection()
+	{
+		ensureOpen();
+		return connections.lease();
+	}
+
 	@Override
 	public void close()
 	{
 		if (!closed.compareAndSet(false, true))
 			return;
-		super.close();
+		// Transaction scopes return their connections to the pool before the pool is closed
+		Scopes.runAll(super::close, connections::close);
 	}
 }
\ No newline at end of file
@@ -6,10 +6,22 @@ package io.github.cowwoc.pouch.jersey.scope;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import jakarta.ws.rs.ServiceUnavailableException;
 import org.glassfish.hk2.api.Factory;
 import org.glassfish.hk2.api.ServiceLocator;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.glassfish.jersey.process.internal.RequestScoped;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Integrates Pouch scopes with Jersey's dependency injection {@code ServiceLocator} for the "main"
@@ -17,6 +29,11 @@ import org.glassfish.jersey.process.internal.RequestScoped;
  */
 public final class MainPouchBinder extends AbstractBinder
 {
+	/**
+	 * The maximum amount of time to wait for the scopes to warm up before accepting requests.
+	 */
+	private static final Duration WARM_UP_TIMEOUT = Duration.ofMinutes(1);
+
 	/**
 	 * Binds an JvmScope.
 	 */
@@ -69,6 +86,41 @@ public final class MainPouchBinder extends AbstractBinder
 		}
 	}
 
+	/**
+	 * Creates a new server scope.
+	 */
+	private static class ServerScopeFactory implements Factory<ServerScope>
+	{
+		private final DatabaseScope databaseScope;
+
+		/**
+		 * Creates a new server scope.
+		 *
+		 * @param databaseScope the database scope
+		 * @throws NullPointerException if {@code databaseScope} is null
+		 */
+		@Inject
+		ServerScopeFactory(DatabaseScope databaseScope)
+		{
+			if (databaseScope == null)
+				throw new NullPointerException("databaseScope may not be null");
+			this.databaseScope = databaseScope;
+		}
+
+		@Override
+		public ServerScope provide()
+		{
+			return new MainServerScope(databaseScope);
+		}
+
+		@Override
+		public void dispose(ServerScope instance)
+		{
+			// Lets in-flight requests complete before the database scope closes
+			instance.drain(instance.getScopeCloseTimeout());
+		}
+	}
+
 	/**
 	 * Creates a new request scope.
 	 */
@@ -80,25 +132,35 @@ public final class MainPouchBinder extends AbstractBinder
 		/**
 		 * Creates a new request scope.
 		 *
-		 * @param databaseScope  the database scope
+		 * @param serverScope    the server scope
 		 * @param serviceLocator the Jersey dependency-injection mechanism
 		 * @throws NullPointerException if any of the arguments are null
 		 */
 		@Inject
-		RequestScopeFactory(DatabaseScope databaseScope, ServiceLocator serviceLocator)
+		RequestScopeFactory(ServerScope serverScope, ServiceLocator serviceLocator)
 		{
-			if (databaseScope == null)
-				throw new NullPointerException("databaseScope may not be null");
+			if (serverScope == null)
+				throw new NullPointerException("serverScope may not be null");
 			if (serviceLocator == null)
 				throw new NullPointerException("serviceLocator may not be null");
-			this.serverScope = new MainServerScope(databaseScope);
+			this.serverScope = serverScope;
 			this.serviceLocator = serviceLocator;
 		}
 
 		@Override
 		public RequestScope provide()
 		{
-			return new MainRequestScope(serverScope, serviceLocator);
+			try
+			{
+				return serverScope.createRequest(serviceLocator);
+			}
+			catch (IllegalStateException e)
+			{
+				if (!serverScope.isDraining())
+					throw e;
+				// Load balancers retry the request on another server
+				throw new ServiceUnavailableException();
+			}
 		}
 
 		@Override
@@ -108,6 +170,67 @@ public final class MainPouchBinder extends AbstractBinder
 		}
 	}
 
+	/**
+	 * Initializes the scopes before the server accepts requests.
+	 */
+	private static final class WarmUpListener implements ContainerLifecycleListener
+	{
+		private final JvmScope jvmScope;
+		private final DatabaseScope databaseScope;
+		private final Logger log = LoggerFactory.getLogger(WarmUpListener.class);
+
+		/**
+		 * Creates a new instance.
+		 *
+		 * @param jvmScope      the JVM configuration
+		 * @param databaseScope the database configuration
+		 * @throws NullPointerException if any of the arguments are null
+		 */
+		@Inject
+		WarmUpListener(JvmScope jvmScope, DatabaseScope databaseScope)
+		{
+			if (jvmScope == null)
+				throw new NullPointerException("jvmScope may not be null");
+			if (databaseScope == null)
+				throw new NullPointerException("databaseScope may not be null");
+			this.jvmScope = jvmScope;
+			this.databaseScope = databaseScope;
+		}
+
+		@Override
+		public void onStartup(Container container)
+		{
+			// Jersey starts up before the server accepts connections, so blocking here holds back traffic until
+			// the values are ready.
+			Executor executor = jvmScope.getScheduler();
+			try
+			{
+				CompletableFuture.allOf(jvmScope.warmUp(executor), databaseScope.warmUp(executor)).
+					get(WARM_UP_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				log.warn("Interrupted during warm-up", e);
+			}
+			catch (ExecutionException | TimeoutException e)
+			{
+				// Values that failed to initialize are created on demand
+				log.warn("Warm-up failed", e);
+			}
+		}
+
+		@Override
+		public void onReload(Container container)
+		{
+		}
+
+		@Override
+		public void onShutdown(Container container)
+		{
+		}
+	}
+
 	/**
 	 * Creates a new instance.
 	 */
@@ -120,6 +243,8 @@ public final class MainPouchBinder extends AbstractBinder
 	{
 		bindFactory(JvmScopeFactory.class).to(JvmScope.class).in(Singleton.class);
 		bindFactory(DatabaseScopeFactory.class).to(DatabaseScope.class).in(Singleton.class);
+		bindFactory(ServerScopeFactory.class).to(ServerScope.class).in(Singleton.class);
 		bindFactory(RequestScopeFactory.class).to(RequestScope.class).in(RequestScoped.class);
+		bind(WarmUpListener.class).to(ContainerLifecycleListener.class).in(Singleton.class);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.jersey.scope;
+
+import io.github.cowwoc.pouch.core.AbstractScope;
+import io.github.cowwoc.pouch.core.Factory;
+import io.github.cowwoc.pouch.core.Scopes;
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A transaction that runs on the connection of an enclosing transaction. Nested transactions are created
+ * using {@link TransactionScope#createNestedScope()}, and may be nested to any depth.
+ * <p>
+ * The nested transaction begins the first time that {@link #getConnection()} is invoked. If the enclosing
+ * transaction is in progress, the nested transaction sets a savepoint: {@link #commit()} releases it, and
+ * {@link #close()} rolls back to it unless the nested transaction was committed. Otherwise, the nested
+ * transaction disables auto-commit mode until it is committed or rolled back.
+ * <p>
+ * The enclosing transaction may not commit while the nested transaction is in progress, because doing so
+ * would commit the nested transaction's changes without its consent.
+ */
+public final class NestedTransactionScope extends AbstractScope
+	implements TransactionScope
+{
+	private final TransactionScope parent;
+	/**
+	 * The number of nested transactions of {@code parent} that are in progress.
+	 */
+	private final AtomicInteger siblingTransactions;
+	/**
+	 * The connection of the enclosing transaction; {@code null} if the nested transaction is not in progress.
+	 */
+	private Connection connection;
+	/**
+	 * The savepoint that the nested transaction rolls back to; {@code null} if the nested transaction
+	 * disabled auto-commit mode instead.
+	 */
+	private Savepoint savepoint;
+	/**
+	 * The callbacks that run once the transaction commits or rolls back.
+	 */
+	private final TransactionCallbacks callbacks = new TransactionCallbacks();
+	/**
+	 * The number of nested transactions of this transaction that are in progress.
+	 */
+	private final AtomicInteger nestedTransactions = new AtomicInteger();
+	private boolean closed;
+
+	/**
+	 * Creates a new nested transaction.
+	 *
+	 * @param parent              the enclosing transaction
+	 * @param siblingTransactions the number of nested transactions of {@code parent} that are in progress
+	 * @throws NullPointerException  if any of the arguments are null
+	 * @throws IllegalStateException if {@code parent} is closed
+	 */
+	NestedTransactionScope(TransactionScope parent, AtomicInteger siblingTransactions)
+	{
+		if (parent == null)
+			throw new NullPointerException("parent may not be null");
+		if (siblingTransactions == null)
+			throw new NullPointerException("siblingTransactions may not be null");
+		this.parent = parent;
+		this.siblingTransactions = siblingTransactions;
+		parent.addChild(this);
+	}
+
+	/**
+	 * Ensures that a transaction's nested transactions are not in progress.
+	 *
+	 * @param nestedTransactions the number of nested transactions that are in progress
+	 * @throws IllegalStateException if a nested transaction is in progress
+	 */
+	static void ensureCompleted(AtomicInteger nestedTransactions)
+	{
+		int inProgress = nestedTransactions.get();
+		if (inProgress > 0)
+		{
+			throw new IllegalStateException("Nested transactions must be committed or closed before the " +
+				"enclosing transaction commits.\n" +
+				"In progress: " + inProgress);
+		}
+	}
+
+	@Override
+	public Duration getScopeCloseTimeout()
+	{
+		return parent.getScopeCloseTimeout();
+	}
+
+	@Override
+	public DataSource getDataSource()
+	{
+		return parent.getDataSource();
+	}
+
+	@Override
+	public RunMode getMode()
+	{
+		return parent.getMode();
+	}
+
+	@Override
+	public SchedulerMode getSchedulerMode()
+	{
+		return parent.getSchedulerMode();
+	}
+
+	@Override
+	public ScheduledExecutorService getScheduler()
+	{
+		return parent.getScheduler();
+	}
+
+	@Override
+	public TransactionScope createTransactionScope()
+	{
+		return parent.createTransactionScope();
+	}
+
+	@Override
+	public TransactionScope tryCreateTransactionScope(Duration timeout)
+	{
+		return parent.tryCreateTransactionScope(timeout);
+	}
+
+	@Override
+	public TransactionScope createNestedScope()
+	{
+		return new NestedTransactionScope(this, nestedTransactions);
+	}
+
+	/**
+	 * Returns the connection of the enclosing transaction, beginning the nested transaction if it is not in
+	 * progress.
+	 *
+	 * @return the database connection associated with the transaction
+	 * @throws IllegalStateException   if {@link #isClosed()}
+	 * @throws WrappedCheckedException if the nested transaction could not begin ({@code SQLException})
+	 */
+	@Override
+	public Connection getConnection()
+	{
+		ensureOpen();
+		if (connection != null)
+			return connection;
+		Connection theConnection = parent.getConnection();
+		try
+		{
+			if (theConnection.getAutoCommit())
+				theConnection.setAutoCommit(false);
+			else
+				savepoint = theConnection.setSavepoint();
+		}
+		catch (SQLException e)
+		{
+			throw WrappedCheckedException.wrap(e);
+		}
+		connection = theConnection;
+		siblingTransactions.incrementAndGet();
+		return connection;
+	}
+
+	@Override
+	public Factory<Connection> leaseConnection()
+	{
+		return parent.leaseConnection();
+	}
+
+	/**
+	 * Commits the nested transaction. If the enclosing transaction is in progress, its savepoint is released
+	 * and the changes and callbacks become part of the enclosing transaction. If the nested transaction made
+	 * no changes, its callbacks also become part of the enclosing transaction, whose outcome is not known
+	 * yet. Subsequent invocations of {@link #getConnection()} begin a new nested transaction.
+	 *
+	 * @throws IllegalStateException   if {@link #isClosed()}, or if a nested transaction of this transaction
+	 *                                 is in progress
+	 * @throws WrappedCheckedException if the transaction could not be committed ({@code SQLException}), or if
+	 *                                 a {@link #onCommit(Runnable) commit callback} threw an exception
+	 */
+	@Override
+	public void commit()
+	{
+		ensureOpen();
+		ensureCompleted(nestedTransactions);
+		if (connection == null)
+		{
+			// The nested transaction made no changes, but its callbacks may depend on changes that the enclosing
+			// transaction has yet to commit
+			callbacks.transferTo(parent);
+			return;
+		}
+		try
+		{
+			if (savepoint == null)
+			{
+				connection.commit();
+				connection.setAutoCommit(true);
+			}
+			else
+				connection.releaseSavepoint(savepoint);
+		}
+		catch (SQLException e)
+		{
+			throw WrappedCheckedException.wrap(e);
+		}
+		boolean durable = savepoint == null;
+		connection = null;
+		savepoint = null;
+		siblingTransactions.decrementAndGet();
+		if (durable)
+			callbacks.committed(getScheduler());
+		else
+		{
+			// The changes are durable once the enclosing transaction commits
+			callbacks.transferTo(parent);
+		}
+	}
+
+	@Override
+	public void onCommit(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onCommit(callback, false);
+	}
+
+	@Override
+	public void onCommitAsync(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onCommit(callback, true);
+	}
+
+	@Override
+	public void onRollback(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onRollback(callback, false);
+	}
+
+	@Override
+	public void onRollbackAsync(Runnable callback)
+	{
+		ensureOpen();
+		callbacks.onRollback(callback, true);
+	}
+
+	@Override
+	public boolean isClosed()
+	{
+		return closed;
+	}
+
+	@Override
+	public void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		Scopes.runAll(() -> children.shutdown(getScopeCloseTimeout()), this::rollback,
+			() -> callbacks.rolledBack(getScheduler()), () -> parent.removeChild(this));
+	}
+
+	/**
+	 * Rolls back any uncommitted changes of the nested transaction, leaving the enclosing transaction intact.
+	 */
+	private void rollback()
+	{
+		if (connection == null)
+			return;
+		Connection theConnection = connection;
+		Savepoint theSavepoint = savepoint;
+		connection = null;
+		savepoint = null;
+		siblingTransactions.decrementAndGet();
+		try
+		{
+			if (theConnection.isClosed())
+				return;
+			if (theSavepoint == null)
+			{
+				theConnection.rollback();
+				theConnection.setAutoCommit(true);
+			}
+			else
+				theConnection.rollback(theSavepoint);
+		}
+		catch (SQLException e)
+		{
+			throw WrappedCheckedException.wrap(e);
+		}
+	}
+}
@@ -5,6 +5,7 @@
 package io.github.cowwoc.pouch.jersey.scope;
 
 import java.net.URI;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Holds values and variables that are specific to the lifetime of the current HTTP request.
@@ -19,4 +20,15 @@ public interface RequestScope extends TransactionScope
 	 * @return the requested URI
 	 */
 	URI getRequestedUri();
+
+	/**
+	 * Returns an executor for subtasks of the request, such as independent database or HTTP calls that may run
+	 * in parallel. Each subtask runs on a virtual thread. When the request scope closes, it waits for the
+	 * subtasks to complete and interrupts those that are still running after
+	 * {@link #getScopeCloseTimeout()}.
+	 *
+	 * @return the executor
+	 * @throws IllegalStateException if {@link #isClosed()}
+	 */
+	ExecutorService getExecutor();
 }
\ No newline at end of file
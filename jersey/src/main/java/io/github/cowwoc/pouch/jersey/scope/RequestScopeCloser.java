@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.jersey.scope;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Closes the scope of each request once the response has been written.
+ * <p>
+ * A {@code ContainerResponseFilter} runs before the response entity is written, so it would close the scope
+ * while a streaming response is still using it. Jersey fires {@code RequestEvent.Type.FINISHED} after the
+ * response is written, for both synchronous and asynchronous requests.
+ */
+final class RequestScopeCloser implements ApplicationEventListener, RequestEventListener
+{
+	private final Logger log = LoggerFactory.getLogger(RequestScopeCloser.class);
+
+	/**
+	 * Creates a new instance.
+	 */
+	RequestScopeCloser()
+	{
+	}
+
+	@Override
+	public void onEvent(ApplicationEvent event)
+	{
+	}
+
+	@Override
+	public RequestEventListener onRequest(RequestEvent event)
+	{
+		// The listener is stateless, so one instance serves all requests
+		return this;
+	}
+
+	@Override
+	public void onEvent(RequestEvent event)
+	{
+		if (event.getType() != RequestEvent.Type.FINISHED)
+			return;
+		RequestScope scope = (RequestScope) event.getContainerRequest().
+			getProperty(RequestScopeFeature.PROPERTY_NAME);
+		if (scope == null)
+			return;
+		try
+		{
+			scope.close();
+		}
+		catch (RuntimeException e)
+		{
+			log.error("Failed to close {}", scope, e);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.jersey.scope;
+
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Feature;
+import jakarta.ws.rs.core.FeatureContext;
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.glassfish.jersey.server.spi.internal.ValueParamProvider;
+
+/**
+ * Creates a request scope for every HTTP request without going through HK2's request-scoped factories.
+ * <p>
+ * A filter creates the scope before the request is matched to a resource, and the scope is closed once the
+ * response has been written, including asynchronous and streaming responses. Resource methods receive the
+ * scope using {@code @Context RequestScope} parameters, and filters using
+ * {@link #getRequestScope(ContainerRequestContext)}.
+ * <p>
+ * The feature requires a {@link ServerScope} to be bound to the {@code ServiceLocator}. Do not inject
+ * {@code RequestScope} through {@code @Inject} in the same request, because that creates a second scope.
+ */
+public final class RequestScopeFeature implements Feature
+{
+	/**
+	 * The name of the request property that holds the request scope.
+	 */
+	static final String PROPERTY_NAME = RequestScope.class.getName();
+
+	/**
+	 * Creates a new instance.
+	 */
+	public RequestScopeFeature()
+	{
+	}
+
+	/**
+	 * Returns the scope of a request.
+	 *
+	 * @param request the request
+	 * @return the request scope
+	 * @throws NullPointerException  if {@code request} is null
+	 * @throws IllegalStateException if the request does not have a scope
+	 */
+	public static RequestScope getRequestScope(ContainerRequestContext request)
+	{
+		if (request == null)
+			throw new NullPointerException("request may not be null");
+		RequestScope scope = (RequestScope) request.getProperty(PROPERTY_NAME);
+		if (scope == null)
+		{
+			throw new IllegalStateException("The request does not have a scope. Was RequestScopeFeature " +
+				"registered?");
+		}
+		return scope;
+	}
+
+	@Override
+	public boolean configure(FeatureContext context)
+	{
+		context.register(RequestScopeFilter.class);
+		context.register(RequestScopeCloser.class);
+		context.register(new AbstractBinder()
+		{
+			@Override
+			protected void configure()
+			{
+				bind(RequestScopeParamProvider.class).to(ValueParamProvider.class).in(Singleton.class);
+			}
+		});
+		return true;
+	}
+}
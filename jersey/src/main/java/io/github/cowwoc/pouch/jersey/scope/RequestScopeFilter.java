@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.jersey.scope;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import org.glassfish.hk2.api.ServiceLocator;
+
+/**
+ * Creates the scope of each request. Requests that arrive while the server is draining are rejected with
+ * {@code 503 Service Unavailable}.
+ */
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 100)
+final class RequestScopeFilter implements ContainerRequestFilter
+{
+	private final ServerScope serverScope;
+	private final ServiceLocator serviceLocator;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param serverScope    the server scope
+	 * @param serviceLocator the Jersey dependency-injection mechanism
+	 * @throws NullPointerException if any of the arguments are null
+	 */
+	@Inject
+	RequestScopeFilter(ServerScope serverScope, ServiceLocator serviceLocator)
+	{
+		if (serverScope == null)
+			throw new NullPointerException("serverScope may not be null");
+		if (serviceLocator == null)
+			throw new NullPointerException("serviceLocator may not be null");
+		this.serverScope = serverScope;
+		this.serviceLocator = serviceLocator;
+	}
+
+	@Override
+	public void filter(ContainerRequestContext request)
+	{
+		// Runs before the other filters so that they may access the scope
+		RequestScope scope;
+		try
+		{
+			scope = serverScope.createRequest(serviceLocator);
+		}
+		catch (IllegalStateException e)
+		{
+			if (!serverScope.isDraining())
+				throw e;
+			// Load balancers retry the request on another server
+			request.abortWith(Response.status(Status.SERVICE_UNAVAILABLE).build());
+			return;
+		}
+		request.setProperty(RequestScopeFeature.PROPERTY_NAME, scope);
+	}
+}
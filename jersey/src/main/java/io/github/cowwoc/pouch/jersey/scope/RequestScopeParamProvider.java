@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.jersey.scope;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.model.Parameter;
+import org.glassfish.jersey.server.spi.internal.ValueParamProvider;
+
+import java.util.function.Function;
+
+/**
+ * Resolves {@code @Context RequestScope} resource method parameters.
+ */
+final class RequestScopeParamProvider implements ValueParamProvider
+{
+	private static final Function<ContainerRequest, RequestScope> GET_SCOPE =
+		RequestScopeFeature::getRequestScope;
+
+	/**
+	 * Creates a new instance.
+	 */
+	RequestScopeParamProvider()
+	{
+	}
+
+	@Override
+	public Function<ContainerRequest, ?> getValueProvider(Parameter parameter)
+	{
+		if (parameter.getSource() != Parameter.Source.CONTEXT || parameter.getRawType() != RequestScope.class)
+			return null;
+		return GET_SCOPE;
+	}
+
+	@Override
+	public PriorityType getPriority()
+	{
+		// Takes precedence over Jersey's provider, which would look up RequestScope in HK2
+		return Priority.HIGH;
+	}
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2025 Gili Tzabari
+ * Licensed under the Apache License, Version 2.0: http://www.apache.org/licenses/LICENSE-2.0
+ */
+package io.github.cowwoc.pouch.jersey.scope;
+
+/**
+ * Determines which threads run the tasks of {@link JvmScope#getScheduler()}.
+ */
+public enum SchedulerMode
+{
+	/**
+	 * A single platform thread fires the triggers and runs the tasks. A slow or blocking task delays all other
+	 * tasks.
+	 */
+	SINGLE_THREAD,
+	/**
+	 * A single platform thread fires the triggers. Each task runs on its own virtual thread, so slow or
+	 * blocking tasks do not delay other tasks.
+	 */
+	VIRTUAL_THREADS
+}
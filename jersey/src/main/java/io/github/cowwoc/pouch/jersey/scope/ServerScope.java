@@ -1,7 +1,10 @@
 package io.github.cowwoc.pouch.jersey.scope;
 
+import io.github.cowwoc.pouch.core.WrappedCheckedException;
 import org.glassfish.hk2.api.ServiceLocator;
 
+import java.time.Duration;
+
 /**
  * Configuration bound to the lifetime of the server.
  * <p>
@@ -15,7 +18,29 @@ public interface ServerScope extends DatabaseScope
 	 * @param serviceLocator the Jersey dependency-injection mechanism
 	 * @return a new request scope
 	 * @throws NullPointerException  if {@code serviceLocator} is null
-	 * @throws IllegalStateException if {@link #isClosed()}
+	 * @throws IllegalStateException if {@link #isDraining()}
 	 */
 	RequestScope createRequest(ServiceLocator serviceLocator);
-}
\ No newline at end of file
+
+	/**
+	 * Indicates if the server is draining. A draining server does not accept new requests, so load balancers
+	 * should treat it as not ready.
+	 *
+	 * @return {@code true} if {@link #drain(Duration)} or {@link #close()} was invoked
+	 */
+	boolean isDraining();
+
+	/**
+	 * Shuts down the server gracefully. The server stops accepting new requests, waits for open requests to
+	 * complete, logs the number of open requests while it waits, then closes any requests that are still
+	 * open and closes itself.
+	 *
+	 * @param timeout the maximum amount of time to wait for open requests to complete
+	 * @return {@code true} if all requests completed before the timeout; {@code false} if some requests had
+	 *         to be closed, or if the server was already draining or closed, in which case this method has
+	 *         no effect
+	 * @throws NullPointerException    if {@code timeout} is null
+	 * @throws WrappedCheckedException if the thread is interrupted while waiting
+	 */
+	boolean drain(Duration timeout);
+}
@@ -5,6 +5,7 @@ module io.github.cowwoc.pouch.jersey
 {
 	requires com.h2database;
 	requires io.github.cowwoc.pouch.core;
+	requires jakarta.annotation;
 	requires jakarta.inject;
 	requires jakarta.ws.rs;
 	requires java.sql;
@@ -13,6 +14,7 @@ module io.github.cowwoc.pouch.jersey
 	requires jersey.server;
 	requires jul.to.slf4j;
 	requires org.eclipse.jetty.server;
+	requires org.eclipse.jetty.util;
 	requires org.glassfish.hk2.api;
 	requires org.slf4j;
 
@@ -5,6 +5,7 @@
 package io.github.cowwoc.pouch.jersey.application;
 
 import io.github.cowwoc.pouch.jersey.resource.HelloWorldResource;
+import io.github.cowwoc.pouch.jersey.scope.RequestScopeFeature;
 import io.github.cowwoc.pouch.jersey.scope.TestPouchBinder;
 import org.glassfish.jersey.server.ResourceConfig;
 
@@ -16,6 +17,7 @@ public final class TestApplication extends ResourceConfig
 	public TestApplication()
 	{
 		register(TestPouchBinder.class);
+		register(RequestScopeFeature.class);
 		register(HelloWorldResource.class);
 	}
 }
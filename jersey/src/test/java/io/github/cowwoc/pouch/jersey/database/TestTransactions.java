@@ -0,0 +1,199 @@
+package io.github.cowwoc.pouch.jersey.database;
+
+import io.github.cowwoc.pouch.jersey.scope.DatabaseScope;
+import io.github.cowwoc.pouch.jersey.scope.DefaultJvmScope;
+import io.github.cowwoc.pouch.jersey.scope.JvmScope;
+import io.github.cowwoc.pouch.jersey.scope.RunMode;
+import io.github.cowwoc.pouch.jersey.scope.TestDatabaseScope;
+import io.github.cowwoc.pouch.jersey.scope.TransactionScope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ensures that nested transactions and transaction callbacks behave correctly.
+ */
+public final class TestTransactions
+{
+	private JvmScope jvmScope;
+	private DatabaseScope databaseScope;
+	/**
+	 * Keeps the in-memory database alive, since H2 drops it once its last connection closes.
+	 */
+	private TransactionScope keepAlive;
+
+	@BeforeEach
+	public void beforeEach() throws SQLException
+	{
+		jvmScope = new DefaultJvmScope(RunMode.DEBUG);
+		databaseScope = new TestDatabaseScope(jvmScope);
+		keepAlive = databaseScope.createTransactionScope();
+		try (Statement statement = keepAlive.getConnection().createStatement())
+		{
+			statement.execute("CREATE TABLE item(id INT PRIMARY KEY)");
+		}
+	}
+
+	@AfterEach
+	public void afterEach()
+	{
+		keepAlive.close();
+		databaseScope.close();
+		jvmScope.close();
+	}
+
+	@Test
+	public void nestedRollbackRestoresSavepoint() throws SQLException
+	{
+		try (TransactionScope transaction = databaseScope.createTransactionScope())
+		{
+			Connection connection = transaction.getConnection();
+			connection.setAutoCommit(false);
+			insert(connection, 1);
+			try (TransactionScope nested = transaction.createNestedScope())
+			{
+				insert(nested.getConnection(), 2);
+				try (TransactionScope innermost = nested.createNestedScope())
+				{
+					insert(innermost.getConnection(), 3);
+					innermost.commit();
+				}
+				assertEquals(3, count(connection));
+			}
+			// Closing the nested transaction without committing it rolls back to its savepoint
+			assertEquals(1, count(connection));
+			transaction.commit();
+		}
+		try (TransactionScope transaction = databaseScope.createTransactionScope())
+		{
+			assertEquals(1, count(transaction.getConnection()));
+		}
+	}
+
+	@Test
+	public void nestedTransactionTogglesAutoCommit() throws SQLException
+	{
+		try (TransactionScope transaction = databaseScope.createTransactionScope())
+		{
+			Connection connection = transaction.getConnection();
+			assertTrue(connection.getAutoCommit());
+			try (TransactionScope nested = transaction.createNestedScope())
+			{
+				insert(nested.getConnection(), 1);
+				assertFalse(connection.getAutoCommit());
+				nested.commit();
+				assertTrue(connection.getAutoCommit());
+
+				insert(nested.getConnection(), 2);
+				assertFalse(connection.getAutoCommit());
+			}
+			// The second nested transaction was rolled back when the scope closed
+			assertTrue(connection.getAutoCommit());
+			assertEquals(1, count(connection));
+		}
+	}
+
+	@Test
+	public void commitWithNestedTransactionInProgress() throws SQLException
+	{
+		try (TransactionScope transaction = databaseScope.createTransactionScope())
+		{
+			Connection connection = transaction.getConnection();
+			connection.setAutoCommit(false);
+			try (TransactionScope nested = transaction.createNestedScope())
+			{
+				insert(nested.getConnection(), 1);
+				assertThrows(IllegalStateException.class, transaction::commit);
+				nested.commit();
+				transaction.commit();
+			}
+		}
+		try (TransactionScope transaction = databaseScope.createTransactionScope())
+		{
+			assertEquals(1, count(transaction.getConnection()));
+		}
+	}
+
+	@Test
+	public void callbacksRunInOrder() throws SQLException, InterruptedException
+	{
+		List<String> events = new CopyOnWriteArrayList<>();
+		CountDownLatch asyncCallbackRan = new CountDownLatch(1);
+		try (TransactionScope transaction = databaseScope.createTransactionScope())
+		{
+			transaction.getConnection().setAutoCommit(false);
+			transaction.onCommitAsync(() ->
+			{
+				events.add("async");
+				asyncCallbackRan.countDown();
+			});
+			transaction.onCommit(() -> events.add("first"));
+			try (TransactionScope nested = transaction.createNestedScope())
+			{
+				nested.onCommit(() -> events.add("nested"));
+				nested.onRollback(() -> events.add("nested rollback"));
+				nested.getConnection();
+				nested.commit();
+			}
+			try (TransactionScope nested = transaction.createNestedScope())
+			{
+				nested.onCommit(() -> events.add("discarded"));
+				nested.onRollback(() -> events.add("rollback"));
+				nested.getConnection();
+			}
+			transaction.onCommit(() -> events.add("last"));
+			transaction.commit();
+		}
+		assertTrue(asyncCallbackRan.await(10, TimeUnit.SECONDS));
+		// Synchronous callbacks run before asynchronous ones are submitted. The callbacks of the committed
+		// nested transaction are deferred to the enclosing transaction.
+		assertEquals(Arrays.asList("rollback", "first", "nested", "last", "async"), events);
+	}
+
+	/**
+	 * Inserts a row.
+	 *
+	 * @param connection the database connection
+	 * @param id         the ID of the row
+	 * @throws SQLException if the row could not be inserted
+	 */
+	private static void insert(Connection connection, int id) throws SQLException
+	{
+		try (Statement statement = connection.createStatement())
+		{
+			statement.executeUpdate("INSERT INTO item(id) VALUES(" + id + ")");
+		}
+	}
+
+	/**
+	 * Returns the number of rows.
+	 *
+	 * @param connection the database connection
+	 * @return the number of rows
+	 * @throws SQLException if the rows could not be counted
+	 */
+	private static int count(Connection connection) throws SQLException
+	{
+		try (Statement statement = connection.createStatement();
+		     ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM item"))
+		{
+			rows.next();
+			return rows.getInt(1);
+		}
+	}
+}
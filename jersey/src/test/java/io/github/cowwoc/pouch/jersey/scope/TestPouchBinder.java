@@ -35,6 +35,74 @@ public final class TestPouchBinder extends AbstractBinder
 		}
 	}
 
+	/**
+	 * Binds a DatabaseScope.
+	 */
+	private static class DatabaseScopeFactory implements Factory<DatabaseScope>
+	{
+		private final JvmScope jvmScope;
+
+		/**
+		 * Creates a new DatabaseScopeFactory.
+		 *
+		 * @param jvmScope the JVM configuration
+		 * @throws NullPointerException if {@code jvmScope} is null
+		 */
+		@Inject
+		DatabaseScopeFactory(JvmScope jvmScope)
+		{
+			if (jvmScope == null)
+				throw new NullPointerException("jvmScope may not be null");
+			this.jvmScope = jvmScope;
+		}
+
+		@Override
+		public DatabaseScope provide()
+		{
+			return new TestDatabaseScope(jvmScope);
+		}
+
+		@Override
+		public void dispose(DatabaseScope instance)
+		{
+			instance.close();
+		}
+	}
+
+	/**
+	 * Binds a ServerScope.
+	 */
+	private static class ServerScopeFactory implements Factory<ServerScope>
+	{
+		private final DatabaseScope databaseScope;
+
+		/**
+		 * Creates a new ServerScopeFactory.
+		 *
+		 * @param databaseScope the database configuration
+		 * @throws NullPointerException if {@code databaseScope} is null
+		 */
+		@Inject
+		ServerScopeFactory(DatabaseScope databaseScope)
+		{
+			if (databaseScope == null)
+				throw new NullPointerException("databaseScope may not be null");
+			this.databaseScope = databaseScope;
+		}
+
+		@Override
+		public ServerScope provide()
+		{
+			return new TestServerScope(databaseScope);
+		}
+
+		@Override
+		public void dispose(ServerScope instance)
+		{
+			instance.close();
+		}
+	}
+
 	/**
 	 * Binds a RequestScope.
 	 */
@@ -46,19 +114,18 @@ public final class TestPouchBinder extends AbstractBinder
 		/**
 		 * Creates a new RequestScopeFactory.
 		 *
-		 * @param jvmScope       the JVM configuration
+		 * @param serverScope    the server configuration
 		 * @param serviceLocator the Jersey dependency-injection mechanism
 		 * @throws NullPointerException if any of the arguments are null
 		 */
 		@Inject
-		RequestScopeFactory(JvmScope jvmScope, ServiceLocator serviceLocator)
+		RequestScopeFactory(ServerScope serverScope, ServiceLocator serviceLocator)
 		{
-			if (jvmScope == null)
+			if (serverScope == null)
 				throw new NullPointerException("serverScope may not be null");
 			if (serviceLocator == null)
 				throw new NullPointerException("serviceLocator may not be null");
-			DatabaseScope databaseScope = new TestDatabaseScope(jvmScope);
-			this.serverScope = new TestServerScope(databaseScope);
+			this.serverScope = serverScope;
 			this.serviceLocator = serviceLocator;
 		}
 
@@ -79,6 +146,8 @@ public final class TestPouchBinder extends AbstractBinder
 	protected void configure()
 	{
 		bindFactory(JvmScopeFactory.class).to(JvmScope.class).in(Singleton.class);
+		bindFactory(DatabaseScopeFactory.class).to(DatabaseScope.class).in(Singleton.class);
+		bindFactory(ServerScopeFactory.class).to(ServerScope.class).in(Singleton.class);
 		bindFactory(RequestScopeFactory.class).to(RequestScope.class).in(RequestScoped.class);
 	}
 }
\ No newline at end of file